@@ -0,0 +1,37 @@
+#!/bin/sh
+# Starts ${artifactId} with an AppCDS archive, so classes are mapped from the archive instead of
+# being loaded and verified again on every start.
+#
+# The first start creates the archive when the JVM exits; later starts use it. When the runtime writes
+# the JVM options for its resolved classpath to $CDS_DIR/jvm.args (for instance with
+# WanakuMavenDownloader.Builder#cdsDirectory), those are used instead.
+#
+# Environment:
+#   JAVA_HOME    the JDK to use (21 or newer)
+#   JAVA_OPTS    additional JVM options
+#   CDS_DIR      the directory holding the archive (default: ./cds)
+#   CDS_ENABLED  set to false to start without an archive
+
+APP_HOME=$(cd "$(dirname "$0")/../../.." && pwd)
+APP_JAR="$APP_HOME/target/${artifactId}-app.jar"
+
+JAVA=java
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+fi
+
+if [ -z "$CDS_DIR" ]; then
+    CDS_DIR="$APP_HOME/cds"
+fi
+
+CDS_OPTS=""
+if [ "$CDS_ENABLED" != "false" ]; then
+    mkdir -p "$CDS_DIR"
+    if [ -f "$CDS_DIR/jvm.args" ]; then
+        CDS_OPTS="@$CDS_DIR/jvm.args"
+    else
+        CDS_OPTS="-XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=$CDS_DIR/${artifactId}.jsa"
+    fi
+fi
+
+exec "$JAVA" $CDS_OPTS $JAVA_OPTS -jar "$APP_JAR" "$@"
@@ -45,5 +45,11 @@ assert pomContent.contains("capabilities-runtime") : "pom.xml does not include c
 assert pomContent.contains("<slf4j.version>2.0.18</slf4j.version>") : "pom.xml has outdated slf4j version"
 assert pomContent.contains("<log4j.version>2.26.0</log4j.version>") : "pom.xml has outdated log4j version"
 
+// Verify the launcher script enables AppCDS
+def launcher = new File(projectDir, "src/main/scripts/run.sh")
+assert launcher.exists() : "launcher script was not created"
+assert launcher.text.contains("test-tool-app.jar") : "launcher script does not reference the application jar"
+assert launcher.text.contains("AutoCreateSharedArchive") : "launcher script does not enable AppCDS"
+
 
 println "All archetype verification checks passed!"
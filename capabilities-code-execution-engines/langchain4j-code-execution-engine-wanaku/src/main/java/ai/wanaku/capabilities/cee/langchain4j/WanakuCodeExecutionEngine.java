@@ -114,7 +114,9 @@ public class WanakuCodeExecutionEngine implements CodeExecutionEngine {
         private Builder() {}
 
         /**
-         * Sets the service configuration for connecting to the Wanaku service.
+         * Sets the service configuration for connecting to the Wanaku service. Configure it with
+         * {@link ai.wanaku.capabilities.sdk.common.security.AuthInitMode#ASYNC} so that {@link #build()}
+         * does not block while the access token is obtained.
          *
          * @param serviceConfig the service configuration (required)
          * @return this builder instance
@@ -1,5 +1,7 @@
 package ai.wanaku.capabilities.sdk.common.config;
 
+import java.nio.file.Path;
+import ai.wanaku.capabilities.sdk.common.security.AuthInitMode;
 import ai.wanaku.capabilities.sdk.common.serializer.Serializer;
 
 /**
@@ -14,6 +16,8 @@ public class DefaultServiceConfig implements ServiceConfig {
     private final String clientId;
     private final String secret;
     private final String tokenEndpoint;
+    private final AuthInitMode authInitMode;
+    private final Path tokenCacheFile;
 
     /**
      * Private constructor to enforce the use of the {@link Builder}.
@@ -26,6 +30,8 @@ public class DefaultServiceConfig implements ServiceConfig {
         this.clientId = builder.clientId;
         this.secret = builder.secret;
         this.tokenEndpoint = builder.tokenEndpoint;
+        this.authInitMode = builder.authInitMode;
+        this.tokenCacheFile = builder.tokenCacheFile;
     }
 
     /**
@@ -62,6 +68,16 @@ public class DefaultServiceConfig implements ServiceConfig {
         return tokenEndpoint;
     }
 
+    @Override
+    public AuthInitMode getAuthInitMode() {
+        return authInitMode;
+    }
+
+    @Override
+    public Path getTokenCacheFile() {
+        return tokenCacheFile;
+    }
+
     /**
      * Builder class for {@link DefaultServiceConfig}.
      */
@@ -71,6 +87,8 @@ public class DefaultServiceConfig implements ServiceConfig {
         private String clientId;
         private String secret;
         private String tokenEndpoint;
+        private AuthInitMode authInitMode = AuthInitMode.EAGER;
+        private Path tokenCacheFile;
 
         /**
          * Sets the base URL for the Service.
@@ -127,6 +145,28 @@ public class DefaultServiceConfig implements ServiceConfig {
             return this;
         }
 
+        /**
+         * Sets when the initial access token should be obtained.
+         *
+         * @param authInitMode The authentication initialization mode.
+         * @return The builder instance.
+         */
+        public Builder authInitMode(AuthInitMode authInitMode) {
+            this.authInitMode = authInitMode;
+            return this;
+        }
+
+        /**
+         * Sets the file where unexpired access tokens are persisted across restarts.
+         *
+         * @param tokenCacheFile The token cache file, typically inside the service data directory.
+         * @return The builder instance.
+         */
+        public Builder tokenCacheFile(Path tokenCacheFile) {
+            this.tokenCacheFile = tokenCacheFile;
+            return this;
+        }
+
         /**
          * Creates a new builder instance.
          *
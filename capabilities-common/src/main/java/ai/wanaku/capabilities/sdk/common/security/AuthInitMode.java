@@ -0,0 +1,23 @@
+package ai.wanaku.capabilities.sdk.common.security;
+
+/**
+ * Controls when a service client obtains its first OAuth2 access token.
+ */
+public enum AuthInitMode {
+    /**
+     * Performs the OIDC discovery and fetches the token while the client is being created.
+     * Construction blocks and fails if the authorization server is unavailable.
+     */
+    EAGER,
+
+    /**
+     * Defers the OIDC discovery and the token request until the first authenticated request.
+     */
+    LAZY,
+
+    /**
+     * Starts the OIDC discovery and the token request in the background as soon as the client
+     * is created. The first authenticated request waits for it to complete.
+     */
+    ASYNC,
+}
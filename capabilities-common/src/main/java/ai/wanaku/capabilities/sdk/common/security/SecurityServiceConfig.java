@@ -1,5 +1,7 @@
 package ai.wanaku.capabilities.sdk.common.security;
 
+import java.nio.file.Path;
+
 /**
  * Common Security configuration
  */
@@ -26,6 +28,25 @@ public interface SecurityServiceConfig {
      */
     String getTokenEndpoint();
 
+    /**
+     * Returns when the initial access token should be obtained. Defaults to {@link AuthInitMode#EAGER}.
+     *
+     * @return The authentication initialization mode.
+     */
+    default AuthInitMode getAuthInitMode() {
+        return AuthInitMode.EAGER;
+    }
+
+    /**
+     * Returns the file where unexpired access tokens are persisted, so they can be reused across restarts.
+     * Defaults to {@code null}, meaning tokens are only cached in memory.
+     *
+     * @return The token cache file, or {@code null}.
+     */
+    default Path getTokenCacheFile() {
+        return null;
+    }
+
     /**
      * Returns whether authentication is enabled. Authentication is considered enabled
      * when client ID, secret, and token endpoint are all non-null and non-empty.
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A dynamic AppCDS archive for a resolved capability classpath.
+ * <p>
+ * Loading and verifying the same Camel, Jackson and Nimbus classes takes seconds on every start. A CDS
+ * archive lets the JVM map them from a pre-parsed archive instead. Since the classpath is only known
+ * once dependencies are resolved, the JVM options are written to an argument file that launchers pass
+ * to the next JVM as {@code java @<directory>/jvm.args ...}. The options use
+ * {@code -XX:+AutoCreateSharedArchive}, so the JVM creates the archive when it exits the first time,
+ * and recreates it when it no longer matches the classpath or the JVM version.
+ * <p>
+ * The archive name is derived from a hash of the JVM version, the application classpath (the SDK jars)
+ * and the resolved artifacts, so a new dependency set gets a new archive. Older archives are removed.
+ * Capabilities sharing a directory use a name each, so that they get their own argument file
+ * ({@code <name>.jvm.args}) and archives instead of replacing each other's.
+ */
+public final class CdsArchive {
+    private static final Logger LOG = LoggerFactory.getLogger(CdsArchive.class);
+
+    /**
+     * The name of the JVM argument file written in the archive directory.
+     */
+    public static final String ARGS_FILE = "jvm.args";
+
+    private static final String ARCHIVE_PREFIX = "wanaku-";
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final int ARCHIVES_KEPT = 2;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final Path directory;
+    private final String name;
+    private final String key;
+
+    private CdsArchive(Path directory, String name, String key) {
+        this.directory = directory;
+        this.name = name;
+        this.key = key;
+    }
+
+    /**
+     * Returns the archive for the current JVM and application classpath plus the given artifacts.
+     *
+     * @param directory the directory holding archives and the argument file
+     * @param artifacts the resolved artifacts, in classpath order
+     * @return the archive
+     */
+    public static CdsArchive forArtifacts(Path directory, List<Path> artifacts) {
+        return forArtifacts(directory, null, artifacts);
+    }
+
+    /**
+     * Returns the named archive for the current JVM and application classpath plus the given artifacts.
+     *
+     * @param directory the directory holding archives and the argument file
+     * @param name the name of the capability owning the archive, or {@code null} for the default
+     *             {@link #ARGS_FILE}
+     * @param artifacts the resolved artifacts, in classpath order
+     * @return the archive
+     * @throws IllegalArgumentException if the name is not a plain file name
+     */
+    public static CdsArchive forArtifacts(Path directory, String name, List<Path> artifacts) {
+        Objects.requireNonNull(directory, "directory must not be null");
+        Objects.requireNonNull(artifacts, "artifacts must not be null");
+        fileName(name, ARGS_FILE);
+
+        MessageDigest digest = newDigest();
+        update(digest, System.getProperty("java.vm.version"));
+        update(digest, System.getProperty("java.class.path"));
+        for (Path artifact : artifacts) {
+            update(digest, artifact.toAbsolutePath().toString());
+            try {
+                update(digest, Long.toString(Files.size(artifact)));
+            } catch (IOException e) {
+                update(digest, "missing");
+            }
+        }
+
+        return new CdsArchive(
+                directory, name, HexFormat.of().formatHex(digest.digest()).substring(0, 16));
+    }
+
+    /**
+     * Returns the argument file of the named archive in the given directory.
+     *
+     * @param directory the directory holding archives and the argument file
+     * @param name the name of the capability owning the archive, or {@code null} for the default
+     *             {@link #ARGS_FILE}
+     * @return the argument file
+     * @throws IllegalArgumentException if the name is not a plain file name
+     */
+    public static Path argsFile(Path directory, String name) {
+        return directory.resolve(fileName(name, ARGS_FILE)).toAbsolutePath();
+    }
+
+    /**
+     * Returns the hash identifying the JVM, application classpath and artifacts of this archive.
+     *
+     * @return the archive key
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Returns the archive file. It only exists once a JVM started with {@link #jvmOptions()} has exited.
+     *
+     * @return the archive file
+     */
+    public Path archiveFile() {
+        return directory.resolve(archivePrefix() + key + ARCHIVE_SUFFIX).toAbsolutePath();
+    }
+
+    /**
+     * Returns the argument file pointing at this archive.
+     *
+     * @return the argument file
+     */
+    public Path argsFile() {
+        return argsFile(directory, name);
+    }
+
+    /**
+     * Returns the JVM options that create the archive on exit and use it on later starts.
+     *
+     * @return the JVM options
+     */
+    public List<String> jvmOptions() {
+        return List.of("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + archiveFile());
+    }
+
+    /**
+     * Returns whether the current JVM was started with this archive.
+     *
+     * @return {@code true} if the JVM uses this archive
+     */
+    public boolean isInUse() {
+        return isInUse(archiveFile());
+    }
+
+    /**
+     * Writes the {@link #jvmOptions() JVM options} to the argument file, unless it already contains
+     * them, and removes old archives.
+     *
+     * @return the argument file
+     * @throws IOException if the argument file cannot be written
+     */
+    public Path writeArgsFile() throws IOException {
+        Path argsFile = argsFile();
+        String content = String.join(System.lineSeparator(), jvmOptions()) + System.lineSeparator();
+
+        if (!Files.isRegularFile(argsFile) || !Files.readString(argsFile).equals(content)) {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, argsFile.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(tmp, content, StandardCharsets.UTF_8);
+                Files.move(tmp, argsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            LOG.debug("Wrote CDS options for archive {} to {}", key, argsFile);
+        }
+
+        pruneArchives();
+        return argsFile;
+    }
+
+    /**
+     * Removes all but the most recent archives of the same name, keeping this one and the one the JVM
+     * is using. Archives of other names belong to other capabilities and are left alone.
+     */
+    private void pruneArchives() throws IOException {
+        Path current = archiveFile();
+        Pattern sameName =
+                Pattern.compile(Pattern.quote(archivePrefix()) + "[0-9a-f]{16}" + Pattern.quote(ARCHIVE_SUFFIX));
+        List<Path> others;
+        try (Stream<Path> files = Files.list(directory)) {
+            others = files.filter(
+                            f -> sameName.matcher(f.getFileName().toString()).matches())
+                    .map(Path::toAbsolutePath)
+                    .filter(f -> !f.equals(current))
+                    .sorted(Comparator.comparing(CdsArchive::lastModified).reversed())
+                    .toList();
+        }
+
+        for (Path old : others.stream().skip(ARCHIVES_KEPT - 1).toList()) {
+            if (!isInUse(old)) {
+                LOG.debug("Removing stale CDS archive {}", old);
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    private String archivePrefix() {
+        return fileName(name, ARCHIVE_PREFIX);
+    }
+
+    private static String fileName(String name, String base) {
+        if (name == null) {
+            return base;
+        }
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid CDS archive name: " + name);
+        }
+        return name + "." + base;
+    }
+
+    private static boolean isInUse(Path archive) {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:SharedArchiveFile=" + archive);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
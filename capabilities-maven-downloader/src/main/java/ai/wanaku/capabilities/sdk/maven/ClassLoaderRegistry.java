@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares classloaders between identical sets of downloaded artifacts.
+ * <p>
+ * When a JVM hosts several capabilities, or redeploys routes, the same artifacts are often downloaded
+ * more than once. Loading them into a new classloader each time duplicates every class in metaspace.
+ * This registry hands out reference-counted {@link Lease leases} instead: all leases for the same parent
+ * and the same ordered list of artifacts share one classloader, which is closed once the last lease is
+ * released, so it can be unloaded.
+ * <p>
+ * Two kinds of leaks are detected. Leases that become unreachable without being closed are reported
+ * and released automatically. Classloaders that were released but are still reachable, typically
+ * through a thread's context classloader or a static cache, are listed by {@link #pendingUnloads()}.
+ */
+public final class ClassLoaderRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(ClassLoaderRegistry.class);
+    private static final ClassLoaderRegistry SHARED = new ClassLoaderRegistry();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final List<Released> released = new ArrayList<>();
+    private final AtomicInteger leakedLeases = new AtomicInteger();
+
+    ClassLoaderRegistry() {}
+
+    /**
+     * Returns the registry shared by all downloaders in this process.
+     *
+     * @return the shared registry
+     */
+    public static ClassLoaderRegistry shared() {
+        return SHARED;
+    }
+
+    private record Key(ClassLoader parent, List<Path> artifacts) {}
+
+    private static final class Entry {
+        private final DynamicClassLoader classLoader;
+        private int references;
+
+        private Entry(DynamicClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+    }
+
+    private record Released(WeakReference<ClassLoader> classLoader, String description) {}
+
+    /**
+     * A reference to a shared classloader. Closing the lease releases the reference; the classloader
+     * is closed when its last lease is released.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final ClassLoader classLoader;
+        private final LeaseState state;
+        private final Cleaner.Cleanable cleanable;
+
+        private Lease(ClassLoader classLoader, LeaseState state) {
+            this.classLoader = classLoader;
+            this.state = state;
+            this.cleanable = CLEANER.register(this, state);
+        }
+
+        /**
+         * Returns the shared classloader.
+         *
+         * @return the classloader
+         */
+        public ClassLoader classLoader() {
+            return classLoader;
+        }
+
+        /**
+         * Releases this lease. Releasing a lease more than once has no effect.
+         */
+        @Override
+        public void close() {
+            state.closed = true;
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Releases a lease when it is closed or, as a leak, when it becomes unreachable. Must not refer to
+     * the lease itself, or it would never become unreachable.
+     */
+    private static final class LeaseState implements Runnable {
+        private final ClassLoaderRegistry registry;
+        private final Key key;
+        private volatile boolean closed;
+
+        private LeaseState(ClassLoaderRegistry registry, Key key) {
+            this.registry = registry;
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (!closed) {
+                registry.leakedLeases.incrementAndGet();
+                LOG.warn(
+                        "A classloader lease for {} artifact(s) was never closed; releasing it",
+                        key.artifacts().size());
+            }
+            registry.release(key);
+        }
+    }
+
+    /**
+     * Returns a lease on the classloader for the given artifacts, creating the classloader if no other
+     * lease currently holds it.
+     *
+     * @param parent    the parent classloader
+     * @param artifacts the JAR files, in classpath order
+     * @return a new lease, to be closed when the classloader is no longer needed
+     */
+    public Lease acquire(ClassLoader parent, List<Path> artifacts) {
+        Objects.requireNonNull(artifacts, "artifacts must not be null");
+        Key key = new Key(
+                parent,
+                artifacts.stream().map(p -> p.toAbsolutePath().normalize()).toList());
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(newClassLoader(key));
+                entries.put(key, entry);
+                LOG.debug("Created a shared classloader for {} artifact(s)", artifacts.size());
+            } else {
+                LOG.debug("Reusing the shared classloader for {} artifact(s)", artifacts.size());
+            }
+            entry.references++;
+        }
+
+        return new Lease(entry.classLoader, new LeaseState(this, key));
+    }
+
+    /**
+     * Returns the number of classloaders currently held by at least one lease.
+     *
+     * @return the number of active classloaders
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of leases that became unreachable without being closed.
+     *
+     * @return the number of leaked leases
+     */
+    public int getLeakedLeaseCount() {
+        return leakedLeases.get();
+    }
+
+    /**
+     * Returns the classloaders that were released but have not been garbage collected yet. A
+     * classloader that stays in this list across garbage collections is leaking, usually because a
+     * thread still uses it as its context classloader or a static field refers to one of its classes.
+     *
+     * @return a description of each released classloader that is still reachable
+     */
+    public synchronized List<String> pendingUnloads() {
+        List<String> pending = new ArrayList<>();
+        for (Iterator<Released> it = released.iterator(); it.hasNext(); ) {
+            Released entry = it.next();
+            if (entry.classLoader().get() == null) {
+                it.remove();
+            } else {
+                pending.add(entry.description());
+            }
+        }
+        return pending;
+    }
+
+    private synchronized void release(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || --entry.references > 0) {
+            return;
+        }
+
+        entries.remove(key);
+        try {
+            entry.classLoader.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close classloader: {}", e.getMessage());
+        }
+        released.add(new Released(
+                new WeakReference<>(entry.classLoader),
+                entry.classLoader + " with " + key.artifacts().size() + " artifact(s), released at " + Instant.now()));
+        LOG.debug(
+                "Released the shared classloader for {} artifact(s)",
+                key.artifacts().size());
+    }
+
+    private static DynamicClassLoader newClassLoader(Key key) {
+        DynamicClassLoader classLoader = new DynamicClassLoader(key.parent());
+        try {
+            for (Path artifact : key.artifacts()) {
+                classLoader.addJar(artifact);
+            }
+        } catch (RuntimeException e) {
+            try {
+                classLoader.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return classLoader;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+/**
+ * Sets the context classloader of the current thread and restores the previous one when closed.
+ * <p>
+ * Leaving a downloaded classloader installed as a context classloader keeps it, and every class it
+ * loaded, reachable for as long as the thread lives. Closing the scope avoids that:
+ *
+ * <pre>{@code
+ * try (ContextClassLoaderScope scope = downloader.withContextClassLoader()) {
+ *     // code relying on the context classloader
+ * }
+ * }</pre>
+ */
+public final class ContextClassLoaderScope implements AutoCloseable {
+    private final Thread thread;
+    private final ClassLoader previous;
+    private final ClassLoader applied;
+
+    private ContextClassLoaderScope(ClassLoader applied) {
+        this.thread = Thread.currentThread();
+        this.previous = thread.getContextClassLoader();
+        this.applied = applied;
+        thread.setContextClassLoader(applied);
+    }
+
+    /**
+     * Sets the context classloader of the current thread.
+     *
+     * @param classLoader the classloader to install
+     * @return a scope restoring the previous context classloader when closed
+     */
+    public static ContextClassLoaderScope apply(ClassLoader classLoader) {
+        return new ContextClassLoaderScope(classLoader);
+    }
+
+    /**
+     * Restores the previous context classloader, unless the context classloader was changed again
+     * since this scope was opened.
+     */
+    @Override
+    public void close() {
+        if (thread.getContextClassLoader() == applied) {
+            thread.setContextClassLoader(previous);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Receives events about the progress of {@link WanakuMavenDownloader#download(List)}.
+ * <p>
+ * Artifacts are collected and downloaded by several threads, so implementations must be thread-safe.
+ * All methods have empty default implementations. Exceptions thrown by a listener are logged and
+ * otherwise ignored.
+ */
+public interface DownloadListener {
+
+    /**
+     * A transfer from a remote repository, such as an artifact, a POM or a metadata file.
+     *
+     * @param resource       the path of the transferred file within the repository
+     * @param repositoryId   the repository identifier
+     * @param repositoryUrl  the repository URL
+     * @param bytes          the number of bytes transferred
+     * @param duration        the time elapsed since the transfer was initiated
+     * @param timeToFirstByte the time elapsed until the repository started sending the file, or the whole
+     *                        {@code duration} if it never did
+     * @param failure         the reason the transfer failed, or {@code null} if it succeeded
+     */
+    record Transfer(
+            String resource,
+            String repositoryId,
+            String repositoryUrl,
+            long bytes,
+            Duration duration,
+            Duration timeToFirstByte,
+            Exception failure) {
+
+        /**
+         * Returns whether the transfer succeeded.
+         *
+         * @return {@code true} if the transfer succeeded
+         */
+        public boolean succeeded() {
+            return failure == null;
+        }
+
+        /**
+         * Returns the throughput of this transfer.
+         *
+         * @return the number of bytes per second, or 0 if nothing was transferred
+         */
+        public long bytesPerSecond() {
+            return DownloadReport.throughput(bytes, duration);
+        }
+    }
+
+    /**
+     * An artifact that was resolved, either from the local repository or from a remote one.
+     *
+     * @param coordinates the artifact coordinates, as {@code groupId:artifactId:extension:version}
+     * @param repository  the identifier of the repository it was downloaded from, or {@code local}
+     * @param cached      {@code true} if the artifact was already present in the local repository
+     * @param duration    the time taken to resolve the artifact, including any download
+     */
+    record ResolvedArtifact(String coordinates, String repository, boolean cached, Duration duration) {}
+
+    /**
+     * Called before the dependency graph of the requested artifacts is collected.
+     *
+     * @param roots the requested artifacts
+     */
+    default void collectStarted(List<GAV> roots) {}
+
+    /**
+     * Called once the dependency graph has been collected, before artifacts are downloaded.
+     *
+     * @param roots   the requested artifacts
+     * @param elapsed the time spent collecting the graph, including POM and metadata downloads
+     */
+    default void collectFinished(List<GAV> roots, Duration elapsed) {}
+
+    /**
+     * Called when a transfer from a remote repository is initiated.
+     *
+     * @param resource     the path of the file within the repository
+     * @param repositoryId the repository identifier
+     */
+    default void transferStarted(String resource, String repositoryId) {}
+
+    /**
+     * Called when a transfer from a remote repository succeeds or fails.
+     *
+     * @param transfer the finished transfer
+     */
+    default void transferFinished(Transfer transfer) {}
+
+    /**
+     * Called when an artifact has been resolved.
+     *
+     * @param artifact the resolved artifact
+     */
+    default void artifactResolved(ResolvedArtifact artifact) {}
+
+    /**
+     * Called when {@link WanakuMavenDownloader#download(List)} completes successfully.
+     *
+     * @param report the summary of the download
+     */
+    default void downloadFinished(DownloadReport report) {}
+}
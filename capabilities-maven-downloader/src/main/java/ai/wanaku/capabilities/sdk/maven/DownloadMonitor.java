@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bridges the resolver's repository and transfer events to {@link DownloadListener}s, and collects
+ * them into a {@link DownloadReport}. Events for different artifacts arrive concurrently from several
+ * resolver threads.
+ */
+final class DownloadMonitor extends AbstractRepositoryListener {
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadMonitor.class);
+
+    static final String LOCAL = "local";
+
+    private final List<DownloadListener> listeners;
+    private final Map<String, Long> started = new ConcurrentHashMap<>();
+    private final Set<String> downloaded = ConcurrentHashMap.newKeySet();
+    private final Queue<DownloadListener.ResolvedArtifact> artifacts = new ConcurrentLinkedQueue<>();
+    private final Queue<DownloadListener.Transfer> transfers = new ConcurrentLinkedQueue<>();
+    private final Map<TransferResource, Instant> firstBytes = new ConcurrentHashMap<>();
+    private final TransferListener transferListener = new AbstractTransferListener() {
+        @Override
+        public void transferInitiated(TransferEvent event) {
+            if (event.getRequestType() == TransferEvent.RequestType.GET) {
+                TransferResource resource = event.getResource();
+                fire(l -> l.transferStarted(resource.getResourceName(), resource.getRepositoryId()));
+            }
+        }
+
+        @Override
+        public void transferStarted(TransferEvent event) {
+            firstBytes.putIfAbsent(event.getResource(), Instant.now());
+        }
+
+        @Override
+        public void transferSucceeded(TransferEvent event) {
+            finished(event, null);
+        }
+
+        @Override
+        public void transferFailed(TransferEvent event) {
+            finished(event, event.getException());
+        }
+    };
+
+    DownloadMonitor(List<DownloadListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+    }
+
+    TransferListener transferListener() {
+        return transferListener;
+    }
+
+    void collectStarted(List<GAV> roots) {
+        started.clear();
+        downloaded.clear();
+        artifacts.clear();
+        transfers.clear();
+        fire(l -> l.collectStarted(roots));
+    }
+
+    void collectFinished(List<GAV> roots, Duration elapsed) {
+        fire(l -> l.collectFinished(roots, elapsed));
+    }
+
+    /**
+     * Records an artifact loaded from a resolution lockfile, bypassing the resolver.
+     */
+    void lockedArtifact(String coordinates) {
+        resolved(new DownloadListener.ResolvedArtifact(coordinates, LOCAL, true, Duration.ZERO));
+    }
+
+    DownloadReport finish(List<GAV> roots, Duration elapsed, Duration collectTime) {
+        DownloadReport report =
+                new DownloadReport(roots, elapsed, collectTime, new ArrayList<>(artifacts), new ArrayList<>(transfers));
+        fire(l -> l.downloadFinished(report));
+        return report;
+    }
+
+    @Override
+    public void artifactResolving(RepositoryEvent event) {
+        started.put(key(event.getArtifact()), System.nanoTime());
+    }
+
+    @Override
+    public void artifactDownloaded(RepositoryEvent event) {
+        if (event.getException() == null) {
+            downloaded.add(key(event.getArtifact()));
+        }
+    }
+
+    @Override
+    public void artifactResolved(RepositoryEvent event) {
+        String key = key(event.getArtifact());
+        Long start = started.remove(key);
+        if (start == null || event.getArtifact().getPath() == null) {
+            return;
+        }
+
+        boolean cached = !downloaded.contains(key);
+        String repository =
+                !cached && event.getRepository() instanceof RemoteRepository remote ? remote.getId() : LOCAL;
+        resolved(new DownloadListener.ResolvedArtifact(
+                key, repository, cached, Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private void resolved(DownloadListener.ResolvedArtifact artifact) {
+        artifacts.add(artifact);
+        fire(l -> l.artifactResolved(artifact));
+    }
+
+    private void finished(TransferEvent event, Exception failure) {
+        if (event.getRequestType() != TransferEvent.RequestType.GET) {
+            return;
+        }
+
+        TransferResource resource = event.getResource();
+        Instant now = Instant.now();
+        Instant firstByte = firstBytes.remove(resource);
+        DownloadListener.Transfer transfer = new DownloadListener.Transfer(
+                resource.getResourceName(),
+                resource.getRepositoryId(),
+                resource.getRepositoryUrl(),
+                event.getTransferredBytes(),
+                Duration.between(resource.getStartTime(), now),
+                Duration.between(resource.getStartTime(), firstByte != null ? firstByte : now),
+                failure);
+        transfers.add(transfer);
+        fire(l -> l.transferFinished(transfer));
+    }
+
+    private void fire(Consumer<DownloadListener> event) {
+        for (DownloadListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                LOG.warn("Download listener {} failed: {}", listener, e.getMessage(), e);
+            }
+        }
+    }
+
+    static String key(Artifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":"
+                + artifact.getVersion();
+    }
+}
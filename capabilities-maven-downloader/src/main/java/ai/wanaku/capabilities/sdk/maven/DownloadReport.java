@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Summary of a call to {@link WanakuMavenDownloader#download(List)}: where the time went, which
+ * artifacts came from the local repository, and how each remote repository performed.
+ *
+ * @param roots       the requested artifacts
+ * @param elapsed     the total time taken
+ * @param collectTime the time spent collecting the dependency graph
+ * @param artifacts   the resolved artifacts, slowest first
+ * @param transfers   the transfers from remote repositories, in completion order
+ */
+public record DownloadReport(
+        List<GAV> roots,
+        Duration elapsed,
+        Duration collectTime,
+        List<DownloadListener.ResolvedArtifact> artifacts,
+        List<DownloadListener.Transfer> transfers) {
+
+    /**
+     * Aggregated transfers from one remote repository.
+     *
+     * @param repositoryId  the repository identifier
+     * @param repositoryUrl the repository URL
+     * @param transfers     the number of transfers
+     * @param failures      the number of failed transfers, including files not found
+     * @param bytes         the number of bytes transferred
+     * @param transferTime  the sum of the transfer durations; transfers run in parallel, so this can
+     *                      exceed the elapsed time
+     */
+    public record RepositoryStats(
+            String repositoryId, String repositoryUrl, int transfers, int failures, long bytes, Duration transferTime) {
+
+        /**
+         * Returns the average throughput of a single transfer from this repository.
+         *
+         * @return the number of bytes per second
+         */
+        public long bytesPerSecond() {
+            return throughput(bytes, transferTime);
+        }
+    }
+
+    public DownloadReport {
+        roots = List.copyOf(roots);
+        artifacts = artifacts.stream()
+                .sorted(Comparator.comparing(DownloadListener.ResolvedArtifact::duration)
+                        .reversed())
+                .toList();
+        transfers = List.copyOf(transfers);
+    }
+
+    /**
+     * Returns the number of artifacts that were already present in the local repository.
+     *
+     * @return the number of cache hits
+     */
+    public long cacheHits() {
+        return artifacts.stream()
+                .filter(DownloadListener.ResolvedArtifact::cached)
+                .count();
+    }
+
+    /**
+     * Returns the number of artifacts that had to be downloaded.
+     *
+     * @return the number of cache misses
+     */
+    public long cacheMisses() {
+        return artifacts.size() - cacheHits();
+    }
+
+    /**
+     * Returns the number of bytes downloaded from all remote repositories.
+     *
+     * @return the number of bytes
+     */
+    public long bytesDownloaded() {
+        return transfers.stream().mapToLong(DownloadListener.Transfer::bytes).sum();
+    }
+
+    /**
+     * Returns the transfers aggregated per remote repository.
+     *
+     * @return the statistics per repository identifier
+     */
+    public Map<String, RepositoryStats> repositories() {
+        Map<String, RepositoryStats> stats = new LinkedHashMap<>();
+        for (DownloadListener.Transfer transfer : transfers) {
+            stats.merge(
+                    transfer.repositoryId(),
+                    new RepositoryStats(
+                            transfer.repositoryId(),
+                            transfer.repositoryUrl(),
+                            1,
+                            transfer.succeeded() ? 0 : 1,
+                            transfer.bytes(),
+                            transfer.duration()),
+                    (a, b) -> new RepositoryStats(
+                            a.repositoryId(),
+                            a.repositoryUrl(),
+                            a.transfers() + b.transfers(),
+                            a.failures() + b.failures(),
+                            a.bytes() + b.bytes(),
+                            a.transferTime().plus(b.transferTime())));
+        }
+        return stats;
+    }
+
+    /**
+     * Formats a human-readable summary of this report.
+     *
+     * @param slowest the number of slowest artifacts to list
+     * @return the summary, one line per item
+     */
+    public String summary(int slowest) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(
+                Locale.ROOT,
+                "Resolved %d artifact(s) for %d root(s) in %d ms (collect %d ms): %d cached, %d downloaded, %s",
+                artifacts.size(),
+                roots.size(),
+                elapsed.toMillis(),
+                collectTime.toMillis(),
+                cacheHits(),
+                cacheMisses(),
+                formatBytes(bytesDownloaded())));
+
+        for (RepositoryStats repo : repositories().values()) {
+            sb.append(String.format(
+                    Locale.ROOT,
+                    "%n  %s (%s): %d transfer(s), %d failed, %s at %s/s",
+                    repo.repositoryId(),
+                    repo.repositoryUrl(),
+                    repo.transfers(),
+                    repo.failures(),
+                    formatBytes(repo.bytes()),
+                    formatBytes(repo.bytesPerSecond())));
+        }
+
+        artifacts.stream()
+                .limit(slowest)
+                .forEach(artifact -> sb.append(String.format(
+                        Locale.ROOT,
+                        "%n  %s (%s) took %d ms",
+                        artifact.coordinates(),
+                        artifact.cached() ? "cached" : "downloaded from " + artifact.repository(),
+                        artifact.duration().toMillis())));
+
+        return sb.toString();
+    }
+
+    static long throughput(long bytes, Duration duration) {
+        long millis = duration.toMillis();
+        return millis > 0 ? bytes * 1000 / millis : 0;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A classloader for downloaded dependency sets that indexes the packages of each JAR as it is added.
+ * <p>
+ * A plain {@link URLClassLoader} scans its JARs one after another for every class or resource lookup,
+ * which gets slow with hundreds of JARs. Here, a lookup only checks the JARs containing the requested
+ * package (usually one), and lookups for packages that no JAR contains, such as the many
+ * {@code ServiceLoader} and Camel probes, fail immediately. Multi-release JARs are opened for the
+ * current runtime version.
+ */
+final class DynamicClassLoader extends URLClassLoader {
+    private static final Logger LOG = LoggerFactory.getLogger(DynamicClassLoader.class);
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Map<String, List<IndexedJar>> packages = new ConcurrentHashMap<>();
+    private final List<IndexedJar> jars = new CopyOnWriteArrayList<>();
+
+    private record IndexedJar(JarFile file, URL url, String base) {}
+
+    DynamicClassLoader(ClassLoader parent) {
+        super(new URL[0], parent);
+    }
+
+    /**
+     * Adds a JAR to this classloader, indexing the packages and resource directories it contains.
+     *
+     * @param jarPath the JAR file
+     */
+    void addJar(Path jarPath) {
+        if (!Files.isRegularFile(jarPath)) {
+            throw new IllegalArgumentException("Not a JAR file: " + jarPath);
+        }
+
+        URL url;
+        try {
+            url = jarPath.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid JAR path: " + jarPath, e);
+        }
+
+        JarFile file;
+        try {
+            file = new JarFile(jarPath.toFile(), true, ZipFile.OPEN_READ, Runtime.version());
+        } catch (IOException e) {
+            throw new DependencyDownloadException("Unable to open " + jarPath, e);
+        }
+
+        IndexedJar jar = new IndexedJar(file, url, "jar:" + jarPath.toUri() + "!/");
+        Set<String> jarPackages =
+                file.versionedStream().map(entry -> packageOf(entry.getName())).collect(Collectors.toSet());
+        for (String pkg : jarPackages) {
+            packages.computeIfAbsent(pkg, k -> new CopyOnWriteArrayList<>()).add(jar);
+        }
+
+        jars.add(jar);
+        super.addURL(url);
+        LOG.trace("Indexed {} package(s) from {}", jarPackages.size(), jarPath);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        String path = name.replace('.', '/').concat(".class");
+        for (IndexedJar jar : candidates(path)) {
+            JarEntry entry = jar.file().getJarEntry(path);
+            if (entry != null) {
+                return defineClass(name, jar, entry);
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    @Override
+    public URL findResource(String name) {
+        for (IndexedJar jar : candidates(name)) {
+            if (jar.file().getJarEntry(name) != null) {
+                return resourceUrl(jar, name);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) {
+        List<URL> urls = new ArrayList<>();
+        for (IndexedJar jar : candidates(name)) {
+            if (jar.file().getJarEntry(name) != null) {
+                URL url = resourceUrl(jar, name);
+                if (url != null) {
+                    urls.add(url);
+                }
+            }
+        }
+        return Collections.enumeration(urls);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (IndexedJar jar : jars) {
+            try {
+                jar.file().close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        jars.clear();
+        packages.clear();
+        super.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private List<IndexedJar> candidates(String name) {
+        List<IndexedJar> candidates = packages.get(packageOf(name));
+        return candidates != null ? candidates : List.of();
+    }
+
+    private Class<?> defineClass(String name, IndexedJar jar, JarEntry entry) throws ClassNotFoundException {
+        byte[] bytes;
+        try (InputStream is = jar.file().getInputStream(entry)) {
+            bytes = is.readAllBytes();
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot > 0) {
+            definePackageIfNeeded(name.substring(0, lastDot), jar);
+        }
+
+        // signers are only available once the entry has been fully read
+        CodeSource codeSource = new CodeSource(jar.url(), entry.getCodeSigners());
+        return defineClass(name, bytes, 0, bytes.length, codeSource);
+    }
+
+    private void definePackageIfNeeded(String packageName, IndexedJar jar) {
+        if (getDefinedPackage(packageName) != null) {
+            return;
+        }
+
+        try {
+            Manifest manifest = jar.file().getManifest();
+            if (manifest != null) {
+                definePackage(packageName, manifest, jar.url());
+            } else {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            }
+        } catch (IOException e) {
+            definePackage(packageName, null, null, null, null, null, null, null);
+        } catch (IllegalArgumentException e) {
+            // defined concurrently by another thread
+            if (getDefinedPackage(packageName) == null) {
+                throw e;
+            }
+        }
+    }
+
+    private static URL resourceUrl(IndexedJar jar, String name) {
+        try {
+            String encoded = new URI(null, null, name, null).getRawPath();
+            return URI.create(jar.base() + encoded).toURL();
+        } catch (URISyntaxException | MalformedURLException | IllegalArgumentException e) {
+            LOG.debug("Unable to create a URL for {} in {}: {}", name, jar.url(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the directory part of an entry or resource name, ignoring a trailing slash.
+     */
+    static String packageOf(String name) {
+        int end = name.endsWith("/") ? name.length() - 1 : name.length();
+        int lastSlash = name.lastIndexOf('/', end - 1);
+        return lastSlash > 0 ? name.substring(0, lastSlash) : "";
+    }
+}
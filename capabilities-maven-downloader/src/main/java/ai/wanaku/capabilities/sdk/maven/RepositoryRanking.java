@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ranks remote repositories by learned latency, for {@link RepositoryStrategy#FASTEST}.
+ * <p>
+ * Latency is measured as the time to first byte, which does not depend on the size of the files, so
+ * probes and transfers of any size are comparable. Repositories without history, and unhealthy ones
+ * whose history is stale, are probed concurrently with a {@code HEAD} request to their base URL; any
+ * HTTP response counts as healthy. Afterwards, the median time to first byte of the transfers observed
+ * in each {@link DownloadReport} is folded into an exponentially weighted moving average. Files a
+ * repository does not have are ignored, but a repository that fails all its other transfers several
+ * times in a row is considered unhealthy and queried last. Rankings can be persisted, so they survive
+ * restarts.
+ */
+final class RepositoryRanking {
+    private static final Logger LOG = LoggerFactory.getLogger(RepositoryRanking.class);
+
+    static final Duration PROBE_TIMEOUT = Duration.ofSeconds(3);
+    static final Duration REPROBE_AFTER = Duration.ofMinutes(10);
+    static final int MAX_FAILURES = 3;
+    private static final double SMOOTHING = 0.3;
+
+    /**
+     * What is known about a repository.
+     *
+     * @param latencyMillis the smoothed time to first byte, in milliseconds
+     * @param failures      the number of consecutive downloads in which every transfer failed
+     * @param updated       when this was last updated
+     */
+    record Stats(double latencyMillis, int failures, Instant updated) {
+        boolean healthy() {
+            return failures < MAX_FAILURES;
+        }
+    }
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Path file;
+
+    /**
+     * Creates a ranking, loading the rankings persisted in the given file.
+     *
+     * @param file the file to persist rankings to, or {@code null} to keep them in memory only
+     */
+    RepositoryRanking(Path file) {
+        this.file = file;
+        if (file != null && Files.isRegularFile(file)) {
+            load();
+        }
+    }
+
+    Stats stats(RemoteRepository repository) {
+        return stats.get(repository.getUrl());
+    }
+
+    /**
+     * Returns the repositories ordered fastest healthy first, probing the ones that need it.
+     * The order of repositories with equal rank is preserved.
+     */
+    List<RemoteRepository> rank(List<RemoteRepository> repositories) {
+        List<CompletableFuture<Void>> probes = new ArrayList<>();
+        for (RemoteRepository repository : repositories) {
+            Stats known = stats.get(repository.getUrl());
+            if (known == null || (!known.healthy() && isStale(known))) {
+                probes.add(probe(repository));
+            }
+        }
+
+        if (!probes.isEmpty()) {
+            CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new)).join();
+            save();
+        }
+
+        List<RemoteRepository> ranked = new ArrayList<>(repositories);
+        ranked.sort(Comparator.comparing(
+                        (RemoteRepository r) -> !stats.get(r.getUrl()).healthy())
+                .thenComparingDouble(r -> stats.get(r.getUrl()).latencyMillis()));
+
+        LOG.debug(
+                "Repository order: {}",
+                ranked.stream().map(RemoteRepository::getId).toList());
+        return ranked;
+    }
+
+    /**
+     * Refines the rankings with the transfers observed during a download.
+     */
+    void record(DownloadReport report) {
+        Map<String, List<DownloadListener.Transfer>> byRepository = new HashMap<>();
+        for (DownloadListener.Transfer transfer : report.transfers()) {
+            if (isNotFound(transfer)) {
+                continue;
+            }
+            byRepository
+                    .computeIfAbsent(transfer.repositoryUrl(), k -> new ArrayList<>())
+                    .add(transfer);
+        }
+        if (byRepository.isEmpty()) {
+            return;
+        }
+
+        byRepository.forEach((url, transfers) -> {
+            List<Long> succeeded = transfers.stream()
+                    .filter(DownloadListener.Transfer::succeeded)
+                    .map(t -> t.timeToFirstByte().toMillis())
+                    .sorted()
+                    .toList();
+
+            Stats previous = stats.get(url);
+            if (succeeded.isEmpty()) {
+                int failures = previous != null ? previous.failures() + 1 : 1;
+                double latency = previous != null ? previous.latencyMillis() : PROBE_TIMEOUT.toMillis();
+                stats.put(url, new Stats(latency, failures, Instant.now()));
+            } else {
+                double median = succeeded.get(succeeded.size() / 2);
+                double latency =
+                        previous != null ? SMOOTHING * median + (1 - SMOOTHING) * previous.latencyMillis() : median;
+                stats.put(url, new Stats(latency, 0, Instant.now()));
+            }
+        });
+
+        save();
+    }
+
+    /**
+     * Returns whether the transfer failed because the repository does not have the file, which says
+     * nothing about its health: repositories are searched in turn for each artifact.
+     */
+    private static boolean isNotFound(DownloadListener.Transfer transfer) {
+        return transfer.failure() instanceof ArtifactNotFoundException
+                || transfer.failure() instanceof MetadataNotFoundException;
+    }
+
+    private CompletableFuture<Void> probe(RemoteRepository repository) {
+        String url = repository.getUrl();
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            stats.put(url, new Stats(0, 0, Instant.now()));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(PROBE_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(PROBE_TIMEOUT)
+                .build();
+
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .<Void>handle((response, failure) -> {
+                    Stats previous = stats.get(url);
+                    if (failure != null) {
+                        int failures = previous != null ? previous.failures() + 1 : MAX_FAILURES;
+                        stats.put(url, new Stats(PROBE_TIMEOUT.toMillis(), failures, Instant.now()));
+                        LOG.info("Repository {} is unreachable: {}", repository.getId(), failure.getMessage());
+                    } else {
+                        long latency =
+                                Duration.ofNanos(System.nanoTime() - start).toMillis();
+                        stats.put(url, new Stats(latency, 0, Instant.now()));
+                        LOG.debug("Repository {} answered in {} ms", repository.getId(), latency);
+                    }
+                    return null;
+                })
+                .whenComplete((ignored, failure) -> client.close());
+    }
+
+    private static boolean isStale(Stats known) {
+        return known.updated().plus(REPROBE_AFTER).isBefore(Instant.now());
+    }
+
+    private void load() {
+        try {
+            Properties props = PropertiesFiles.load(file);
+            int count = Integer.parseInt(props.getProperty("repositories", "0"));
+            for (int i = 0; i < count; i++) {
+                String prefix = "repository." + i + ".";
+                stats.put(
+                        props.getProperty(prefix + "url"),
+                        new Stats(
+                                Double.parseDouble(props.getProperty(prefix + "latency")),
+                                Integer.parseInt(props.getProperty(prefix + "failures")),
+                                Instant.parse(props.getProperty(prefix + "updated"))));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring invalid repository rankings {}: {}", file, e.getMessage());
+            stats.clear();
+        }
+    }
+
+    private synchronized void save() {
+        if (file == null) {
+            return;
+        }
+
+        Properties props = new Properties();
+        int count = 0;
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            String prefix = "repository." + count + ".";
+            props.setProperty(prefix + "url", entry.getKey());
+            props.setProperty(
+                    prefix + "latency", Double.toString(entry.getValue().latencyMillis()));
+            props.setProperty(
+                    prefix + "failures", Integer.toString(entry.getValue().failures()));
+            props.setProperty(prefix + "updated", entry.getValue().updated().toString());
+            count++;
+        }
+        props.setProperty("repositories", Integer.toString(count));
+
+        try {
+            PropertiesFiles.store(file, props, "Wanaku repository rankings");
+        } catch (IOException e) {
+            LOG.warn("Unable to persist the repository rankings to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+/**
+ * Controls the order in which {@link WanakuMavenDownloader} queries remote repositories.
+ * An artifact missing from a repository is looked up in the next one.
+ */
+public enum RepositoryStrategy {
+    /**
+     * Queries Maven Central first, followed by the extra repositories in the order they were given.
+     */
+    DECLARED,
+
+    /**
+     * Queries the fastest healthy repository first. Repositories without history are probed
+     * concurrently, and rankings are refined from the latency observed while downloading.
+     */
+    FASTEST,
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the outcome of a resolution, so later runs with the same inputs can skip Aether entirely.
+ * <p>
+ * A lockfile is keyed by the requested GAVs (in order, since it affects conflict mediation) and the
+ * remote repositories. It lists every resolved artifact with its path, size and SHA-256 checksum.
+ * The lockfile is only honored if every file still exists with the recorded checksum.
+ * <p>
+ * Resolutions whose result may change over time, because a root is a snapshot, a version range or a
+ * meta-version, or because a snapshot was resolved, are not locked: they are resolved again every time,
+ * so new snapshots and range updates are picked up.
+ */
+final class ResolutionLockfile {
+    private static final Logger LOG = LoggerFactory.getLogger(ResolutionLockfile.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ResolutionLockfile() {}
+
+    /**
+     * A resolved artifact as recorded in the lockfile.
+     *
+     * @param coordinates the artifact coordinates
+     * @param path        the artifact file
+     * @param size        the file size, in bytes
+     * @param sha256      the hex-encoded SHA-256 checksum of the file
+     */
+    record Entry(String coordinates, Path path, long size, String sha256) {}
+
+    /**
+     * Returns whether the given roots always resolve to the same artifacts, so their resolution can be locked.
+     */
+    static boolean isLockable(List<GAV> gavs) {
+        for (GAV gav : gavs) {
+            if (isVolatile(gav.version())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given version may resolve to different artifacts over time: a snapshot, a
+     * version range, or the {@code LATEST} and {@code RELEASE} meta-versions.
+     */
+    static boolean isVolatile(String version) {
+        return version.endsWith("-SNAPSHOT")
+                || version.startsWith("[")
+                || version.startsWith("(")
+                || version.equals("LATEST")
+                || version.equals("RELEASE");
+    }
+
+    /**
+     * Returns the lockfile for the given inputs within the lockfile directory.
+     */
+    static Path fileFor(Path directory, List<GAV> gavs, List<RemoteRepository> repositories) {
+        return directory.resolve(inputsKey(gavs, repositories) + ".lock");
+    }
+
+    /**
+     * Reads and verifies a lockfile.
+     *
+     * @return the recorded artifacts, or {@code null} if the lockfile is missing, invalid or any
+     *         recorded file no longer matches
+     */
+    static List<Entry> read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        Properties props;
+        try {
+            props = PropertiesFiles.load(file);
+        } catch (IOException e) {
+            LOG.warn("Unable to read the resolution lockfile {}: {}", file, e.getMessage());
+            return null;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try {
+            int count = Integer.parseInt(props.getProperty("artifacts", "0"));
+            for (int i = 0; i < count; i++) {
+                String prefix = "artifact." + i + ".";
+                Entry entry = new Entry(
+                        props.getProperty(prefix + "coordinates"),
+                        Path.of(props.getProperty(prefix + "path")),
+                        Long.parseLong(props.getProperty(prefix + "size")),
+                        props.getProperty(prefix + "sha256"));
+
+                if (!matches(entry)) {
+                    LOG.info("Resolution lockfile {} is stale: {} changed", file, entry.coordinates());
+                    return null;
+                }
+                entries.add(entry);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Ignoring invalid resolution lockfile {}: {}", file, e.getMessage());
+            return null;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes a lockfile recording the given resolved files.
+     */
+    static void write(Path file, List<GAV> gavs, List<Entry> entries) {
+        Properties props = new Properties();
+        props.setProperty("inputs", gavs.toString());
+        props.setProperty("artifacts", Integer.toString(entries.size()));
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            String prefix = "artifact." + i + ".";
+            props.setProperty(prefix + "coordinates", entry.coordinates());
+            props.setProperty(prefix + "path", entry.path().toAbsolutePath().toString());
+            props.setProperty(prefix + "size", Long.toString(entry.size()));
+            props.setProperty(prefix + "sha256", entry.sha256());
+        }
+
+        try {
+            PropertiesFiles.store(file, props, "Wanaku resolution lockfile");
+        } catch (IOException e) {
+            LOG.warn("Unable to write the resolution lockfile {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a lockfile entry for a resolved file, computing its checksum.
+     */
+    static Entry entryFor(String coordinates, Path path) throws IOException {
+        return new Entry(coordinates, path, Files.size(path), sha256(path));
+    }
+
+    private static boolean matches(Entry entry) {
+        try {
+            return Files.isRegularFile(entry.path())
+                    && Files.size(entry.path()) == entry.size()
+                    && sha256(entry.path()).equals(entry.sha256());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static String sha256(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream is = Files.newInputStream(path)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String inputsKey(List<GAV> gavs, List<RemoteRepository> repositories) {
+        MessageDigest digest = newDigest();
+        for (GAV gav : gavs) {
+            digest.update(gav.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        for (RemoteRepository repository : repositories) {
+            digest.update(repository.getUrl().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
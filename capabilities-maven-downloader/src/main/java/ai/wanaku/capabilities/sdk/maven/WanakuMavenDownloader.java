@@ -18,18 +18,24 @@
 package ai.wanaku.capabilities.sdk.maven;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.repository.RemoteRepository;
@@ -43,6 +49,7 @@ import org.eclipse.aether.util.artifact.JavaScopes;
 import org.eclipse.aether.util.filter.DependencyFilterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
 
 /**
  * Downloads Maven dependencies (including transitive ones) at runtime and makes them
@@ -51,10 +58,45 @@ import org.slf4j.LoggerFactory;
  * <pre>{@code
  * try (WanakuMavenDownloader downloader = new WanakuMavenDownloader()) {
  *     downloader.download(List.of(GAV.parse("org.example:my-lib:1.0")));
- *     downloader.applyToCurrentThread();
- *     // classes from my-lib and its dependencies are now loadable
+ *     try (ContextClassLoaderScope scope = downloader.withContextClassLoader()) {
+ *         // classes from my-lib and its dependencies are now loadable
+ *     }
  * }
  * }</pre>
+ *
+ * <p>All requested artifacts are resolved as a single dependency graph, so shared transitive
+ * dependencies are collected once and version conflicts between roots are mediated as Maven would.
+ * Artifacts are downloaded in parallel; use {@link Builder#resolverThreads(int)} to tune the number
+ * of threads.
+ *
+ * <p>When a lockfile directory is configured, the outcome of each resolution is recorded there.
+ * Later resolutions of the same GAVs against the same repositories verify the recorded files and
+ * load them directly, without building the Maven repository system at all. Resolutions involving
+ * snapshots or version ranges are never recorded, so they always pick up the latest artifacts.
+ *
+ * <p>The local repository can be shared by several processes, for instance capability containers
+ * mounting the same volume. Access to each artifact is coordinated with file locks compatible with
+ * Maven's own, and artifacts are downloaded to a temporary file before being moved into place, so each
+ * artifact is downloaded once and never observed half-written. Use {@link Builder#lockTimeout(Duration)}
+ * to control how long a process waits for another one to finish downloading.
+ *
+ * <p>Each download logs a summary of where the time went: dependency collection, cache hits and misses,
+ * throughput per remote repository and the slowest artifacts. The same information is available from
+ * {@link #getLastReport()}, and as it happens through a {@link DownloadListener}.
+ *
+ * <p>By default, Maven Central is queried first. With {@link RepositoryStrategy#FASTEST}, the fastest
+ * healthy repository is queried first instead, based on probes and on the latency observed in previous
+ * downloads, which can be persisted with {@link Builder#repositoryRankingFile(Path)}.
+ *
+ * <p>Each downloader owns its classloader by default. When several downloaders in a JVM resolve the
+ * same artifacts, they can share one classloader through a {@link ClassLoaderRegistry} instead, see
+ * {@link Builder#classLoaderRegistry(ClassLoaderRegistry)}. Each later download then leases a shared
+ * classloader for the new artifacts only, as a child of the previous one, so classes that were already
+ * loaded keep coming from the classloader that loaded them.
+ *
+ * <p>With {@link Builder#cdsDirectory(Path)}, the JVM options for a {@link CdsArchive} of the resolved
+ * classpath are written once the downloads are complete, see {@link #writeCdsArgsFile()}, so launchers
+ * can start the next JVM with it.
  */
 public class WanakuMavenDownloader implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(WanakuMavenDownloader.class);
@@ -62,10 +104,40 @@ public class WanakuMavenDownloader implements AutoCloseable {
     private static final RemoteRepository CENTRAL =
             new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build();
 
-    private final RepositorySystem repositorySystem;
-    private final RepositorySystemSession.CloseableSession session;
+    /**
+     * The default number of threads used to collect and download artifacts.
+     */
+    public static final int DEFAULT_RESOLVER_THREADS = 5;
+
+    /**
+     * The default time to wait for a lock on the local repository held by another thread or process.
+     */
+    public static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final int SLOWEST_ARTIFACTS_LOGGED = 5;
+    private static final int LOCK_RETRIES = 3;
+
+    private final Path localRepository;
+    private final int resolverThreads;
+    private final Duration lockTimeout;
+    private final Path lockfileDirectory;
     private final List<RemoteRepository> repositories;
+    private final RepositoryRanking ranking;
     private final DynamicClassLoader classLoader;
+    private final ClassLoader parentClassLoader;
+    private final ClassLoaderRegistry classLoaderRegistry;
+    private final Path cdsDirectory;
+    private final String cdsName;
+    private final Set<Path> downloadedArtifacts = new LinkedHashSet<>();
+    private boolean cdsPending;
+    private final DownloadMonitor monitor;
+    private final Object resolutionLock = new Object();
+    private volatile DownloadReport lastReport;
+    private final List<ClassLoaderRegistry.Lease> leases = new ArrayList<>();
+    private volatile ClassLoader sharedClassLoader;
+
+    private RepositorySystem repositorySystem;
+    private RepositorySystemSession.CloseableSession session;
 
     /**
      * Creates a downloader that resolves from Maven Central only, using {@code ~/.m2/repository}
@@ -110,27 +182,54 @@ public class WanakuMavenDownloader implements AutoCloseable {
      * @param localRepository   path to the local Maven repository cache
      */
     public WanakuMavenDownloader(List<Repository> extraRepositories, Path localRepository, ClassLoader classLoader) {
-        Objects.requireNonNull(extraRepositories, "extraRepositories must not be null");
-        Objects.requireNonNull(localRepository, "localRepository must not be null");
+        this(Builder.newBuilder()
+                .extraRepositories(extraRepositories)
+                .localRepository(localRepository)
+                .parentClassLoader(classLoader));
+    }
+
+    private WanakuMavenDownloader(Builder builder) {
+        Objects.requireNonNull(builder.extraRepositories, "extraRepositories must not be null");
+        Objects.requireNonNull(builder.localRepository, "localRepository must not be null");
+        if (builder.resolverThreads < 1) {
+            throw new IllegalArgumentException("resolverThreads must be at least 1");
+        }
 
-        this.repositorySystem = new RepositorySystemSupplier().get();
-        this.session = new SessionBuilderSupplier(repositorySystem)
-                .get()
-                .withLocalRepositoryBaseDirectories(localRepository)
-                .build();
+        this.localRepository = builder.localRepository;
+        this.resolverThreads = builder.resolverThreads;
+        this.lockTimeout = Objects.requireNonNull(builder.lockTimeout, "lockTimeout must not be null");
+        this.lockfileDirectory = builder.lockfileDirectory;
+        this.monitor = new DownloadMonitor(builder.listeners);
+        Objects.requireNonNull(builder.repositoryStrategy, "repositoryStrategy must not be null");
+        this.ranking = builder.repositoryStrategy == RepositoryStrategy.FASTEST
+                ? new RepositoryRanking(builder.repositoryRankingFile)
+                : null;
 
         List<RemoteRepository> repos = new ArrayList<>();
         repos.add(CENTRAL);
-        for (Repository repo : extraRepositories) {
+        for (Repository repo : builder.extraRepositories) {
             repos.add(repo.toRemoteRepository());
         }
         this.repositories = Collections.unmodifiableList(repos);
 
-        this.classLoader = new DynamicClassLoader(classLoader);
+        this.classLoader = new DynamicClassLoader(builder.parentClassLoader);
+        this.parentClassLoader = builder.parentClassLoader;
+        this.classLoaderRegistry = builder.classLoaderRegistry;
+        this.cdsDirectory = builder.cdsDirectory;
+        this.cdsName = builder.cdsName;
+        if (cdsDirectory != null) {
+            CdsArchive.argsFile(cdsDirectory, cdsName);
+        }
     }
 
     /**
      * Downloads the given artifacts and all their transitive compile-scope dependencies.
+     * <p>
+     * The artifacts are resolved together as a single dependency graph: when two roots depend on
+     * different versions of the same artifact, only the nearest one is kept. If a lockfile for the
+     * same inputs exists and all its files are intact, they are used without resolving again.
+     *
+     * Concurrent calls on the same downloader are resolved one after another.
      *
      * @param gavs the Maven coordinates to resolve
      * @return paths to all resolved JAR files (including transitive dependencies)
@@ -138,81 +237,518 @@ public class WanakuMavenDownloader implements AutoCloseable {
      */
     public List<Path> download(List<GAV> gavs) {
         Objects.requireNonNull(gavs, "gavs must not be null");
+        if (gavs.isEmpty()) {
+            return List.of();
+        }
 
-        DependencyFilter filter = DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE, JavaScopes.RUNTIME);
-        List<Path> allPaths = new ArrayList<>();
+        synchronized (resolutionLock) {
+            try (StartupTimeline.Phase ignored = StartupTimeline.global().begin(StartupTimeline.MAVEN_RESOLUTION)) {
+                return resolve(gavs);
+            }
+        }
+    }
 
-        for (GAV gav : gavs) {
-            LOG.debug("Resolving {}", gav);
+    /**
+     * Starts downloading the given artifacts on a background thread, as {@link #download(List)} does.
+     * This lets callers overlap dependency resolution with other startup work, such as service
+     * registration or route loading, and wait for the classpath only when it is needed.
+     *
+     * @param gavs the Maven coordinates to resolve
+     * @return a future completing with the paths to all resolved JAR files, or exceptionally with a
+     *         {@link DependencyDownloadException} if any dependency cannot be resolved
+     */
+    public CompletableFuture<List<Path>> downloadAsync(List<GAV> gavs) {
+        return downloadAsync(gavs, WanakuMavenDownloader::startDownloadThread);
+    }
 
-            CollectRequest collectRequest = new CollectRequest();
-            collectRequest.setRoot(new Dependency(
-                    new DefaultArtifact(gav.groupId(), gav.artifactId(), "jar", gav.version()), "compile"));
-            collectRequest.setRepositories(repositories);
+    /**
+     * Starts downloading the given artifacts using the given executor, as {@link #download(List)} does.
+     *
+     * @param gavs     the Maven coordinates to resolve
+     * @param executor the executor running the download
+     * @return a future completing with the paths to all resolved JAR files, or exceptionally with a
+     *         {@link DependencyDownloadException} if any dependency cannot be resolved
+     */
+    public CompletableFuture<List<Path>> downloadAsync(List<GAV> gavs, Executor executor) {
+        Objects.requireNonNull(gavs, "gavs must not be null");
+        Objects.requireNonNull(executor, "executor must not be null");
+        return CompletableFuture.supplyAsync(() -> download(gavs), executor);
+    }
 
-            DependencyRequest request = new DependencyRequest(collectRequest, filter);
+    private static void startDownloadThread(Runnable task) {
+        Thread.ofPlatform().name("wanaku-maven-download").daemon().start(task);
+    }
 
-            DependencyResult result;
-            try {
-                result = repositorySystem.resolveDependencies(session, request);
-            } catch (DependencyResolutionException e) {
-                throw new DependencyDownloadException("Failed to resolve " + gav, e);
+    private List<Path> resolve(List<GAV> gavs) {
+        long start = System.nanoTime();
+        monitor.collectStarted(gavs);
+
+        Path lockfile = lockfileDirectory != null && ResolutionLockfile.isLockable(gavs)
+                ? ResolutionLockfile.fileFor(lockfileDirectory, gavs, repositories)
+                : null;
+        if (lockfile != null) {
+            List<Path> locked = loadLocked(lockfile);
+            if (locked != null) {
+                monitor.collectFinished(gavs, Duration.ZERO);
+                report(gavs, start, Duration.ZERO);
+                return locked;
             }
+        }
+
+        LOG.debug("Resolving {}", gavs);
+
+        CollectRequest collectRequest = new CollectRequest();
+        for (GAV gav : gavs) {
+            collectRequest.addDependency(new Dependency(
+                    new DefaultArtifact(gav.groupId(), gav.artifactId(), "jar", gav.version()), JavaScopes.COMPILE));
+        }
+        collectRequest.setRepositories(ranking != null ? ranking.rank(repositories) : repositories);
 
-            for (ArtifactResult ar : result.getArtifactResults()) {
-                Path jarPath = ar.getArtifact().getPath();
-                if (jarPath != null) {
-                    allPaths.add(jarPath);
-                    classLoader.addJar(jarPath);
-                    LOG.debug("  resolved {} -> {}", ar.getArtifact(), jarPath);
+        CollectResult collected;
+        try {
+            collected = repositorySystem().collectDependencies(session(), collectRequest);
+        } catch (DependencyCollectionException e) {
+            throw new DependencyDownloadException("Failed to resolve " + gavs, e);
+        }
+        Duration collectTime = Duration.ofNanos(System.nanoTime() - start);
+        monitor.collectFinished(gavs, collectTime);
+
+        DependencyFilter filter = DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE, JavaScopes.RUNTIME);
+        DependencyRequest request = new DependencyRequest(collected.getRoot(), filter);
+
+        DependencyResult result;
+        try {
+            result = repositorySystem().resolveDependencies(session(), request);
+        } catch (DependencyResolutionException e) {
+            throw new DependencyDownloadException("Failed to resolve " + gavs, e);
+        }
+
+        List<Path> allPaths = new ArrayList<>();
+        List<ResolutionLockfile.Entry> entries = new ArrayList<>();
+        boolean lockable = lockfile != null;
+        for (ArtifactResult ar : result.getArtifactResults()) {
+            Path jarPath = ar.getArtifact().getPath();
+            if (jarPath != null) {
+                allPaths.add(jarPath);
+                LOG.debug("  resolved {} -> {}", ar.getArtifact(), jarPath);
+
+                if (lockable && ar.getArtifact().isSnapshot()) {
+                    LOG.debug("Not locking the resolution of {}: {} is a snapshot", gavs, ar.getArtifact());
+                    lockable = false;
+                } else if (lockable) {
+                    entries.add(lockEntry(ar, jarPath));
                 }
             }
         }
 
+        attach(allPaths);
+        DownloadReport report = report(gavs, start, collectTime);
+        if (ranking != null) {
+            ranking.record(report);
+        }
+
+        if (lockable && entries.size() == allPaths.size()) {
+            ResolutionLockfile.write(lockfile, gavs, entries);
+        }
+        return Collections.unmodifiableList(allPaths);
+    }
+
+    private List<Path> loadLocked(Path lockfile) {
+        long start = System.nanoTime();
+        List<ResolutionLockfile.Entry> entries = ResolutionLockfile.read(lockfile);
+        if (entries == null) {
+            return null;
+        }
+
+        List<Path> allPaths = new ArrayList<>(entries.size());
+        for (ResolutionLockfile.Entry entry : entries) {
+            allPaths.add(entry.path());
+            monitor.lockedArtifact(entry.coordinates());
+        }
+        attach(allPaths);
+
+        LOG.debug(
+                "Loaded {} artifact(s) from lockfile {} in {} ms",
+                allPaths.size(),
+                lockfile.getFileName(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
         return Collections.unmodifiableList(allPaths);
     }
 
     /**
-     * Returns the classloader containing all downloaded artifacts.
+     * Makes the given artifacts loadable: either adds them to this downloader's own classloader, or
+     * leases a shared classloader for the artifacts not downloaded before. The shared classloader is a
+     * child of the one leased by the previous download, and all leases are kept until the downloader
+     * is closed, since the classes loaded from them may still be in use.
+     */
+    private synchronized void attach(List<Path> paths) {
+        List<Path> added = new ArrayList<>();
+        for (Path path : paths) {
+            if (downloadedArtifacts.add(path)) {
+                added.add(path);
+            }
+        }
+        if (!added.isEmpty()) {
+            cdsPending = true;
+        }
+
+        if (classLoaderRegistry == null) {
+            added.forEach(classLoader::addJar);
+            return;
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        ClassLoader parent = leases.isEmpty() ? parentClassLoader : sharedClassLoader;
+        ClassLoaderRegistry.Lease lease = classLoaderRegistry.acquire(parent, added);
+        leases.add(lease);
+        sharedClassLoader = lease.classLoader();
+    }
+
+    /**
+     * Writes the JVM options for a {@link CdsArchive} of all the artifacts downloaded so far. Call it
+     * once the dependency set is final, e.g. after the last download of a capability start, so the
+     * archive covers the whole classpath. If it is not called, the options are written when the
+     * downloader is closed. Nothing is written again until more artifacts are downloaded.
+     *
+     * @return the argument file, or {@code null} if no {@link Builder#cdsDirectory(Path) CDS directory}
+     *         is set or it could not be written
+     */
+    public synchronized Path writeCdsArgsFile() {
+        if (cdsDirectory == null) {
+            return null;
+        }
+        if (!cdsPending) {
+            return CdsArchive.argsFile(cdsDirectory, cdsName);
+        }
+
+        CdsArchive archive = CdsArchive.forArtifacts(cdsDirectory, cdsName, List.copyOf(downloadedArtifacts));
+        try {
+            Path argsFile = archive.writeArgsFile();
+            cdsPending = false;
+            if (archive.isInUse()) {
+                LOG.info("Using CDS archive {}", archive.archiveFile());
+            } else {
+                LOG.info("CDS archive {} will be used by JVMs started with @{}", archive.key(), argsFile);
+            }
+            return argsFile;
+        } catch (IOException e) {
+            LOG.warn("Unable to write the CDS options to {}: {}", cdsDirectory, e.getMessage());
+            return null;
+        }
+    }
+
+    private static ResolutionLockfile.Entry lockEntry(ArtifactResult ar, Path jarPath) {
+        try {
+            return ResolutionLockfile.entryFor(DownloadMonitor.key(ar.getArtifact()), jarPath);
+        } catch (IOException e) {
+            throw new DependencyDownloadException("Failed to checksum " + jarPath, e);
+        }
+    }
+
+    private synchronized RepositorySystem repositorySystem() {
+        if (repositorySystem == null) {
+            repositorySystem = new RepositorySystemSupplier().get();
+        }
+        return repositorySystem;
+    }
+
+    private synchronized RepositorySystemSession session() {
+        if (session == null) {
+            session = new SessionBuilderSupplier(repositorySystem())
+                    .get()
+                    .withLocalRepositoryBaseDirectories(localRepository)
+                    .setConfigProperty("aether.dependencyCollector.impl", "bf")
+                    .setConfigProperty("aether.dependencyCollector.bf.threads", resolverThreads)
+                    .setConfigProperty("aether.connector.basic.threads", resolverThreads)
+                    // file locks (named like Maven's) let processes sharing the local repository wait
+                    // for each other instead of downloading the same artifact concurrently
+                    .setConfigProperty("aether.syncContext.named.factory", "file-lock")
+                    .setConfigProperty("aether.syncContext.named.nameMapper", "file-gav")
+                    .setConfigProperty("aether.syncContext.named.time", lockTimeout.toMillis())
+                    .setConfigProperty("aether.syncContext.named.time.unit", "MILLISECONDS")
+                    .setConfigProperty("aether.syncContext.named.retry", LOCK_RETRIES)
+                    .setRepositoryListener(monitor)
+                    .setTransferListener(monitor.transferListener())
+                    .build();
+        }
+        return session;
+    }
+
+    /**
+     * Returns how long each artifact took to resolve during the last call to {@link #download(List)},
+     * slowest first. Keys are {@code groupId:artifactId:extension:version}.
+     *
+     * @return the per-artifact resolution times
+     */
+    public Map<String, Duration> getArtifactTimings() {
+        DownloadReport report = lastReport;
+        if (report == null) {
+            return Map.of();
+        }
+
+        Map<String, Duration> timings = new LinkedHashMap<>();
+        for (DownloadListener.ResolvedArtifact artifact : report.artifacts()) {
+            timings.put(artifact.coordinates(), artifact.duration());
+        }
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * Returns the report of the last successful call to {@link #download(List)}.
+     *
+     * @return the last download report, or {@code null} if nothing was downloaded yet
+     */
+    public DownloadReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Returns the classloader containing all downloaded artifacts. When a {@link ClassLoaderRegistry}
+     * is used, a call to {@link #download(List)} that adds artifacts returns a child of the previous
+     * classloader, so the classloader should be obtained after downloading.
      */
     public ClassLoader getClassLoader() {
-        return classLoader;
+        ClassLoader shared = sharedClassLoader;
+        return shared != null ? shared : classLoader;
     }
 
     /**
      * Sets the current thread's context classloader to include all downloaded artifacts.
+     *
+     * @deprecated the classloader stays reachable from the thread until it is replaced; use
+     *             {@link #withContextClassLoader()} instead
      */
+    @Deprecated
     public void applyToCurrentThread() {
-        Thread.currentThread().setContextClassLoader(classLoader);
+        Thread.currentThread().setContextClassLoader(getClassLoader());
+    }
+
+    /**
+     * Sets the current thread's context classloader to include all downloaded artifacts, until the
+     * returned scope is closed.
+     *
+     * @return a scope that restores the previous context classloader when closed, so the downloaded
+     *         classes do not stay reachable from the thread
+     */
+    public ContextClassLoaderScope withContextClassLoader() {
+        return ContextClassLoaderScope.apply(getClassLoader());
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
+        writeCdsArgsFile();
         try {
             classLoader.close();
         } catch (IOException e) {
             LOG.warn("Failed to close classloader: {}", e.getMessage());
         }
-        session.close();
-        repositorySystem.close();
+        for (int i = leases.size() - 1; i >= 0; i--) {
+            leases.get(i).close();
+        }
+        leases.clear();
+        sharedClassLoader = null;
+        if (session != null) {
+            session.close();
+        }
+        if (repositorySystem != null) {
+            repositorySystem.close();
+        }
+    }
+
+    private DownloadReport report(List<GAV> gavs, long start, Duration collectTime) {
+        DownloadReport report = monitor.finish(gavs, Duration.ofNanos(System.nanoTime() - start), collectTime);
+        lastReport = report;
+        LOG.info("{}", report.summary(SLOWEST_ARTIFACTS_LOGGED));
+        return report;
     }
 
     private static Path defaultLocalRepo() {
         return Path.of(System.getProperty("user.home"), ".m2", "repository");
     }
 
-    private static final class DynamicClassLoader extends URLClassLoader {
+    /**
+     * Builder for {@link WanakuMavenDownloader}.
+     */
+    public static class Builder {
+        private List<Repository> extraRepositories = Collections.emptyList();
+        private Path localRepository = defaultLocalRepo();
+        private ClassLoader parentClassLoader = WanakuMavenDownloader.class.getClassLoader();
+        private int resolverThreads = DEFAULT_RESOLVER_THREADS;
+        private Path lockfileDirectory;
+        private Duration lockTimeout = DEFAULT_LOCK_TIMEOUT;
+        private final List<DownloadListener> listeners = new ArrayList<>();
+        private RepositoryStrategy repositoryStrategy = RepositoryStrategy.DECLARED;
+        private Path repositoryRankingFile;
+        private ClassLoaderRegistry classLoaderRegistry;
+        private Path cdsDirectory;
+        private String cdsName;
 
-        DynamicClassLoader(ClassLoader parent) {
-            super(new URL[0], parent);
+        /**
+         * Sets the remote repositories to resolve from, in addition to Maven Central.
+         *
+         * @param extraRepositories additional remote repositories
+         * @return the builder instance
+         */
+        public Builder extraRepositories(List<Repository> extraRepositories) {
+            this.extraRepositories = extraRepositories;
+            return this;
         }
 
-        void addJar(Path jarPath) {
-            try {
-                addURL(jarPath.toUri().toURL());
-            } catch (MalformedURLException e) {
-                throw new IllegalArgumentException("Invalid JAR path: " + jarPath, e);
-            }
+        /**
+         * Sets the local Maven repository cache. Defaults to {@code ~/.m2/repository}.
+         *
+         * @param localRepository path to the local repository
+         * @return the builder instance
+         */
+        public Builder localRepository(Path localRepository) {
+            this.localRepository = localRepository;
+            return this;
+        }
+
+        /**
+         * Sets the parent of the classloader holding the downloaded artifacts.
+         *
+         * @param parentClassLoader the parent classloader
+         * @return the builder instance
+         */
+        public Builder parentClassLoader(ClassLoader parentClassLoader) {
+            this.parentClassLoader = parentClassLoader;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to collect the dependency graph and to download artifacts.
+         * Defaults to {@value WanakuMavenDownloader#DEFAULT_RESOLVER_THREADS}.
+         *
+         * @param resolverThreads the number of threads, at least 1
+         * @return the builder instance
+         */
+        public Builder resolverThreads(int resolverThreads) {
+            this.resolverThreads = resolverThreads;
+            return this;
+        }
+
+        /**
+         * Sets the directory where resolution lockfiles are kept. When set, each resolution is
+         * recorded there, and repeated resolutions of the same inputs load the recorded files
+         * without touching the Maven repository system, as long as their checksums still match.
+         * Disabled by default.
+         *
+         * @param lockfileDirectory the lockfile directory, or {@code null} to disable lockfiles
+         * @return the builder instance
+         */
+        public Builder lockfileDirectory(Path lockfileDirectory) {
+            this.lockfileDirectory = lockfileDirectory;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for a lock on the local repository held by another thread or process,
+         * such as another capability downloading the same artifact into a shared local repository.
+         * Defaults to {@link WanakuMavenDownloader#DEFAULT_LOCK_TIMEOUT}.
+         *
+         * @param lockTimeout the lock timeout
+         * @return the builder instance
+         */
+        public Builder lockTimeout(Duration lockTimeout) {
+            this.lockTimeout = lockTimeout;
+            return this;
+        }
+
+        /**
+         * Adds a listener notified of the progress of each download: dependency collection,
+         * transfers from remote repositories and resolved artifacts.
+         *
+         * @param listener the listener to add
+         * @return the builder instance
+         */
+        public Builder listener(DownloadListener listener) {
+            this.listeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+            return this;
+        }
+
+        /**
+         * Sets the order in which remote repositories are queried. Defaults to
+         * {@link RepositoryStrategy#DECLARED}.
+         *
+         * @param repositoryStrategy the repository strategy
+         * @return the builder instance
+         */
+        public Builder repositoryStrategy(RepositoryStrategy repositoryStrategy) {
+            this.repositoryStrategy = repositoryStrategy;
+            return this;
+        }
+
+        /**
+         * Sets the file where repository rankings learned with {@link RepositoryStrategy#FASTEST} are
+         * persisted, so they survive restarts. By default, rankings are kept in memory only.
+         *
+         * @param repositoryRankingFile the rankings file
+         * @return the builder instance
+         */
+        public Builder repositoryRankingFile(Path repositoryRankingFile) {
+            this.repositoryRankingFile = repositoryRankingFile;
+            return this;
+        }
+
+        /**
+         * Shares the classloader with other downloaders that resolved the same artifacts, through the
+         * given registry, usually {@link ClassLoaderRegistry#shared()}. The shared classloader is
+         * released when this downloader is closed. By default, each downloader owns its classloader.
+         *
+         * @param classLoaderRegistry the registry, or {@code null} to use a private classloader
+         * @return the builder instance
+         */
+        public Builder classLoaderRegistry(ClassLoaderRegistry classLoaderRegistry) {
+            this.classLoaderRegistry = classLoaderRegistry;
+            return this;
+        }
+
+        /**
+         * Sets the directory where the JVM options for a {@link CdsArchive} of the resolved classpath
+         * are written, see {@link WanakuMavenDownloader#writeCdsArgsFile()}. Launchers pass the
+         * {@link CdsArchive#ARGS_FILE} found there to the JVM, which then creates the archive on exit and
+         * maps classes from it on later starts. Disabled by default.
+         *
+         * @param cdsDirectory the archive directory, or {@code null} to disable CDS archives
+         * @return the builder instance
+         */
+        public Builder cdsDirectory(Path cdsDirectory) {
+            this.cdsDirectory = cdsDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the name of the {@link CdsArchive}, typically the capability name, so downloaders sharing
+         * a {@link #cdsDirectory(Path) CDS directory} write their own {@code <name>.jvm.args} instead
+         * of replacing each other's. Defaults to the unnamed {@link CdsArchive#ARGS_FILE}.
+         *
+         * @param cdsName a plain file name, or {@code null} for the default
+         * @return the builder instance
+         */
+        public Builder cdsName(String cdsName) {
+            this.cdsName = cdsName;
+            return this;
+        }
+
+        /**
+         * Creates a new builder instance.
+         *
+         * @return a new {@link Builder} instance
+         */
+        public static Builder newBuilder() {
+            return new Builder();
+        }
+
+        /**
+         * Builds a {@link WanakuMavenDownloader} with the configured parameters.
+         *
+         * @return a new downloader
+         */
+        public WanakuMavenDownloader build() {
+            return new WanakuMavenDownloader(this);
         }
     }
 }
@@ -0,0 +1,77 @@
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CdsArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keyDependsOnResolvedArtifacts() throws Exception {
+        Path a = Files.writeString(tempDir.resolve("a.jar"), "a");
+        Path b = Files.writeString(tempDir.resolve("b.jar"), "b");
+
+        CdsArchive first = CdsArchive.forArtifacts(tempDir, List.of(a, b));
+
+        assertEquals(
+                first.key(), CdsArchive.forArtifacts(tempDir, List.of(a, b)).key());
+        assertNotEquals(
+                first.key(), CdsArchive.forArtifacts(tempDir, List.of(a)).key());
+        assertNotEquals(
+                first.key(), CdsArchive.forArtifacts(tempDir, List.of(b, a)).key());
+    }
+
+    @Test
+    void argsFileEnablesArchiveAndOldArchivesArePruned() throws Exception {
+        Path cds = tempDir.resolve("cds");
+        Files.createDirectories(cds);
+        Path older = Files.writeString(cds.resolve("wanaku-0000000000000001.jsa"), "");
+        Path old = Files.writeString(cds.resolve("wanaku-0000000000000002.jsa"), "");
+        Files.setLastModifiedTime(older, FileTime.from(Instant.now().minusSeconds(120)));
+        Files.setLastModifiedTime(old, FileTime.from(Instant.now().minusSeconds(60)));
+
+        CdsArchive archive = CdsArchive.forArtifacts(cds, List.of());
+        Path argsFile = archive.writeArgsFile();
+
+        assertEquals(archive.jvmOptions(), Files.readAllLines(argsFile));
+        assertTrue(archive.jvmOptions().contains("-XX:SharedArchiveFile=" + archive.archiveFile()));
+        assertTrue(Files.exists(old), "The previous archive is kept");
+        assertFalse(Files.exists(older), "Older archives are removed");
+    }
+
+    @Test
+    void namedArchivesDoNotReplaceEachOther() throws Exception {
+        Path cds = tempDir.resolve("cds");
+        Path a = Files.writeString(tempDir.resolve("a.jar"), "a");
+        Path b = Files.writeString(tempDir.resolve("b.jar"), "b");
+
+        CdsArchive first = CdsArchive.forArtifacts(cds, "first", List.of(a));
+        CdsArchive second = CdsArchive.forArtifacts(cds, "second", List.of(b));
+        Path firstArgs = first.writeArgsFile();
+        Path secondArgs = second.writeArgsFile();
+        Files.writeString(first.archiveFile(), "");
+        Files.writeString(CdsArchive.forArtifacts(cds, List.of(a)).archiveFile(), "");
+        CdsArchive.forArtifacts(cds, List.of(b)).writeArgsFile();
+        CdsArchive.forArtifacts(cds, List.of(a, b)).writeArgsFile();
+
+        assertNotEquals(firstArgs, secondArgs);
+        assertEquals(cds.resolve("first.jvm.args").toAbsolutePath(), firstArgs);
+        assertEquals(first.jvmOptions(), Files.readAllLines(firstArgs));
+        assertEquals(second.jvmOptions(), Files.readAllLines(secondArgs));
+        assertTrue(Files.exists(first.archiveFile()), "Archives of other names are kept");
+        assertThrows(IllegalArgumentException.class, () -> CdsArchive.forArtifacts(cds, "../other", List.of()));
+    }
+}
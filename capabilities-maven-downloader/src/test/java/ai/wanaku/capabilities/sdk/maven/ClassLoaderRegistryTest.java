@@ -0,0 +1,88 @@
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ClassLoaderRegistryTest {
+
+    private static final ClassLoader PARENT = ClassLoaderRegistryTest.class.getClassLoader();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void identicalArtifactSetsShareClassLoader() throws IOException {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+        Path a = createJar("a.jar");
+        Path b = createJar("b.jar");
+
+        try (ClassLoaderRegistry.Lease first = registry.acquire(PARENT, List.of(a, b));
+                ClassLoaderRegistry.Lease second = registry.acquire(PARENT, List.of(a, b));
+                ClassLoaderRegistry.Lease reordered = registry.acquire(PARENT, List.of(b, a))) {
+            assertSame(first.classLoader(), second.classLoader());
+            assertNotSame(first.classLoader(), reordered.classLoader());
+            assertEquals(2, registry.size());
+        }
+
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void classLoaderIsReleasedWithLastLease() throws IOException {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+        List<Path> artifacts = List.of(createJar("a.jar"));
+
+        ClassLoaderRegistry.Lease first = registry.acquire(PARENT, artifacts);
+        ClassLoaderRegistry.Lease second = registry.acquire(PARENT, artifacts);
+        ClassLoader shared = first.classLoader();
+
+        first.close();
+        first.close();
+        assertEquals(1, registry.size());
+
+        second.close();
+        assertEquals(0, registry.size());
+        // still reachable through the local variable
+        assertEquals(1, registry.pendingUnloads().size());
+
+        try (ClassLoaderRegistry.Lease again = registry.acquire(PARENT, artifacts)) {
+            assertNotSame(shared, again.classLoader());
+        }
+    }
+
+    @Test
+    void contextClassLoaderScopeRestoresPreviousLoader() throws IOException {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+
+        try (ClassLoaderRegistry.Lease lease = registry.acquire(PARENT, List.of(createJar("a.jar")))) {
+            try (ContextClassLoaderScope scope = ContextClassLoaderScope.apply(lease.classLoader())) {
+                assertSame(lease.classLoader(), Thread.currentThread().getContextClassLoader());
+            }
+        }
+
+        assertSame(previous, Thread.currentThread().getContextClassLoader());
+    }
+
+    private Path createJar(String name) throws IOException {
+        Path jar = tempDir.resolve(name);
+        if (!Files.exists(jar)) {
+            try (OutputStream os = Files.newOutputStream(jar);
+                    JarOutputStream jos = new JarOutputStream(os, new Manifest())) {
+                jos.flush();
+            }
+        }
+        return jar;
+    }
+}
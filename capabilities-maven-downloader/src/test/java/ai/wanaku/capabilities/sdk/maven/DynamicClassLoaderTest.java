@@ -0,0 +1,104 @@
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DynamicClassLoaderTest {
+
+    private static final String SAMPLE = Sample.class.getName();
+    private static final String SAMPLE_ENTRY = SAMPLE.replace('.', '/') + ".class";
+    private static final String SERVICE = "META-INF/services/org.example.Service";
+
+    @TempDir
+    Path tempDir;
+
+    public static class Sample {}
+
+    @Test
+    void loadsClassesAndDefinesPackagesFromManifest() throws Exception {
+        try (DynamicClassLoader loader = new DynamicClassLoader(ClassLoader.getPlatformClassLoader())) {
+            loader.addJar(createJar("sample.jar", true));
+
+            Class<?> sample = loader.loadClass(SAMPLE);
+
+            assertSame(loader, sample.getClassLoader());
+            assertEquals("1.2.3", sample.getPackage().getImplementationVersion());
+        }
+    }
+
+    @Test
+    void findsResourcesAcrossJarsInClasspathOrder() throws Exception {
+        try (DynamicClassLoader loader = new DynamicClassLoader(ClassLoader.getPlatformClassLoader())) {
+            loader.addJar(createJar("first.jar", true));
+            loader.addJar(createJar("second.jar", false));
+
+            List<URL> services = Collections.list(loader.getResources(SERVICE));
+
+            assertEquals(2, services.size());
+            try (InputStream is = services.get(0).openStream()) {
+                assertEquals("first.jar", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertNotNull(loader.getResource(SAMPLE_ENTRY));
+        }
+    }
+
+    @Test
+    void unknownPackagesFailFast() throws Exception {
+        try (DynamicClassLoader loader = new DynamicClassLoader(ClassLoader.getPlatformClassLoader())) {
+            loader.addJar(createJar("sample.jar", true));
+
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass("org.example.Missing"));
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass(SAMPLE + "Missing"));
+            assertNull(loader.getResource("org/example/missing.properties"));
+        }
+    }
+
+    @Test
+    void packageOfIgnoresTrailingSlash() {
+        assertEquals("org/example", DynamicClassLoader.packageOf("org/example/Foo.class"));
+        assertEquals("org", DynamicClassLoader.packageOf("org/example/"));
+        assertEquals("", DynamicClassLoader.packageOf("root.properties"));
+    }
+
+    private Path createJar(String name, boolean withClass) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION, "1.2.3");
+
+        Path jar = tempDir.resolve(name);
+        try (OutputStream os = Files.newOutputStream(jar);
+                JarOutputStream jos = new JarOutputStream(os, manifest)) {
+            if (withClass) {
+                jos.putNextEntry(new JarEntry(SAMPLE_ENTRY));
+                try (InputStream is = Sample.class.getClassLoader().getResourceAsStream(SAMPLE_ENTRY)) {
+                    is.transferTo(jos);
+                }
+                jos.closeEntry();
+            }
+
+            jos.putNextEntry(new JarEntry(SERVICE));
+            jos.write(name.getBytes(StandardCharsets.UTF_8));
+            jos.closeEntry();
+        }
+        return jar;
+    }
+}
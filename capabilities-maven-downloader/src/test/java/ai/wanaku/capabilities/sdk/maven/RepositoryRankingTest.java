@@ -0,0 +1,109 @@
+package ai.wanaku.capabilities.sdk.maven;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryRankingTest {
+
+    private static final RemoteRepository UNREACHABLE = repository("unreachable", "http://localhost:1/maven2/");
+    private static final RemoteRepository SLOW = repository("slow", "file:///tmp/slow");
+    private static final RemoteRepository FAST = repository("fast", "file:///tmp/fast");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void unreachableRepositoriesAreQueriedLast() {
+        RepositoryRanking ranking = new RepositoryRanking(null);
+
+        List<RemoteRepository> ranked = ranking.rank(List.of(UNREACHABLE, SLOW));
+
+        assertEquals(List.of(SLOW, UNREACHABLE), ranked);
+        assertFalse(ranking.stats(UNREACHABLE).healthy());
+    }
+
+    @Test
+    void observedLatencyIsPersisted() {
+        Path file = tempDir.resolve("rankings.properties");
+
+        RepositoryRanking ranking = new RepositoryRanking(file);
+        ranking.rank(List.of(SLOW, FAST));
+        ranking.record(report(transfer(SLOW, 900), transfer(FAST, 50), transfer(SLOW, 1100)));
+
+        RepositoryRanking restarted = new RepositoryRanking(file);
+
+        assertEquals(List.of(FAST, SLOW), restarted.rank(List.of(SLOW, FAST)));
+    }
+
+    @Test
+    void missingFilesDoNotMakeRepositoriesUnhealthy() {
+        RepositoryRanking ranking = new RepositoryRanking(null);
+        ranking.rank(List.of(SLOW, FAST));
+
+        for (int i = 0; i < RepositoryRanking.MAX_FAILURES; i++) {
+            ranking.record(report(notFound(FAST), transfer(SLOW, 900)));
+        }
+
+        assertTrue(ranking.stats(FAST).healthy());
+        assertEquals(List.of(FAST, SLOW), ranking.rank(List.of(SLOW, FAST)));
+    }
+
+    @Test
+    void transfersAreRankedByTimeToFirstByte() {
+        RepositoryRanking ranking = new RepositoryRanking(null);
+        ranking.rank(List.of(SLOW, FAST));
+
+        ranking.record(report(
+                new DownloadListener.Transfer(
+                        "large.jar",
+                        FAST.getId(),
+                        FAST.getUrl(),
+                        10_000_000,
+                        Duration.ofSeconds(5),
+                        Duration.ofMillis(20),
+                        null),
+                transfer(SLOW, 300)));
+
+        assertEquals(List.of(FAST, SLOW), ranking.rank(List.of(SLOW, FAST)));
+    }
+
+    private static DownloadListener.Transfer notFound(RemoteRepository repository) {
+        return new DownloadListener.Transfer(
+                "missing.pom",
+                repository.getId(),
+                repository.getUrl(),
+                0,
+                Duration.ofMillis(10),
+                Duration.ofMillis(10),
+                new ArtifactNotFoundException(new DefaultArtifact("org.acme:missing:1.0"), repository));
+    }
+
+    private static DownloadReport report(DownloadListener.Transfer... transfers) {
+        return new DownloadReport(List.of(), Duration.ZERO, Duration.ZERO, List.of(), List.of(transfers));
+    }
+
+    private static DownloadListener.Transfer transfer(RemoteRepository repository, long millis) {
+        return new DownloadListener.Transfer(
+                "resource",
+                repository.getId(),
+                repository.getUrl(),
+                100,
+                Duration.ofMillis(millis),
+                Duration.ofMillis(millis),
+                null);
+    }
+
+    private static RemoteRepository repository(String id, String url) {
+        return new RemoteRepository.Builder(id, "default", url).build();
+    }
+}
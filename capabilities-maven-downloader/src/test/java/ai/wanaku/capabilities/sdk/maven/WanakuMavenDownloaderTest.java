@@ -17,16 +17,32 @@
 
 package ai.wanaku.capabilities.sdk.maven;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class WanakuMavenDownloaderTest {
 
@@ -59,6 +75,219 @@ class WanakuMavenDownloaderTest {
         }
     }
 
+    @Test
+    void downloadResolvesRootsAsSingleGraph() {
+        try (WanakuMavenDownloader downloader = WanakuMavenDownloader.Builder.newBuilder()
+                .localRepository(tempRepo)
+                .resolverThreads(4)
+                .build()) {
+            // commons-text 1.11.0 depends on commons-lang3 3.13.0; the direct 3.14.0 root must win
+            List<Path> paths = downloader.download(List.of(
+                    GAV.parse("org.apache.commons:commons-text:1.11.0"),
+                    GAV.parse("org.apache.commons:commons-lang3:3.14.0")));
+
+            List<String> lang3 = paths.stream()
+                    .map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("commons-lang3"))
+                    .toList();
+            assertEquals(List.of("commons-lang3-3.14.0.jar"), lang3);
+            assertFalse(downloader.getArtifactTimings().isEmpty(), "Expected per-artifact timings");
+        }
+    }
+
+    @Test
+    void listenersReceiveTransfersAndReport() {
+        Set<String> events = ConcurrentHashMap.newKeySet();
+        List<DownloadReport> reports = new ArrayList<>();
+        DownloadListener listener = new DownloadListener() {
+            @Override
+            public void collectFinished(List<GAV> roots, Duration elapsed) {
+                events.add("collect");
+            }
+
+            @Override
+            public void transferFinished(Transfer transfer) {
+                events.add("transfer:" + transfer.repositoryId());
+            }
+
+            @Override
+            public void artifactResolved(ResolvedArtifact artifact) {
+                events.add("artifact:" + artifact.cached());
+            }
+
+            @Override
+            public void downloadFinished(DownloadReport report) {
+                reports.add(report);
+            }
+        };
+
+        try (WanakuMavenDownloader downloader = WanakuMavenDownloader.Builder.newBuilder()
+                .localRepository(tempRepo)
+                .listener(listener)
+                .build()) {
+            downloader.download(List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0")));
+
+            DownloadReport report = downloader.getLastReport();
+            assertEquals(List.of(report), reports);
+            assertTrue(events.containsAll(Set.of("collect", "transfer:central", "artifact:false")), events::toString);
+            // POMs of the artifact and its parents are resolved too
+            assertTrue(report.artifacts().stream()
+                    .anyMatch(
+                            a -> a.coordinates().equals("org.apache.commons:commons-lang3:jar:3.14.0") && !a.cached()));
+            assertTrue(report.bytesDownloaded() > 0);
+            assertTrue(report.repositories().containsKey("central"));
+        }
+    }
+
+    @Test
+    void lockfileSkipsResolutionUntilStale(@TempDir Path lockDir) throws Exception {
+        List<GAV> gavs = List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0"));
+
+        List<Path> resolved;
+        try (WanakuMavenDownloader downloader = lockfileDownloader(lockDir)) {
+            resolved = downloader.download(gavs);
+        }
+
+        List<Path> lockfiles;
+        try (var files = Files.list(lockDir)) {
+            lockfiles = files.toList();
+        }
+        assertEquals(1, lockfiles.size());
+
+        try (WanakuMavenDownloader downloader = lockfileDownloader(lockDir)) {
+            assertEquals(resolved, downloader.download(gavs));
+            assertEquals(Duration.ZERO, downloader.getLastReport().collectTime(), "Lockfile should bypass resolution");
+            assertDoesNotThrow(() -> downloader.getClassLoader().loadClass("org.apache.commons.lang3.StringUtils"));
+        }
+
+        Path lockfile = lockfiles.get(0);
+        Files.writeString(lockfile, Files.readString(lockfile).replaceAll("sha256=\\w+", "sha256=0000"));
+
+        try (WanakuMavenDownloader downloader = lockfileDownloader(lockDir)) {
+            assertEquals(resolved, downloader.download(gavs));
+            assertTrue(
+                    downloader.getLastReport().collectTime().compareTo(Duration.ZERO) > 0,
+                    "Stale lockfile should trigger a resolution");
+        }
+    }
+
+    @Test
+    void lockfileIsNotWrittenForVersionRanges(@TempDir Path lockDir) throws Exception {
+        try (WanakuMavenDownloader downloader = lockfileDownloader(lockDir)) {
+            assertFalse(downloader
+                    .download(List.of(GAV.parse("org.apache.commons:commons-lang3:[3.14.0,3.14.0]")))
+                    .isEmpty());
+        }
+
+        try (var files = Files.list(lockDir)) {
+            assertEquals(0, files.count(), "Version ranges must be resolved again on every download");
+        }
+    }
+
+    @Test
+    void concurrentDownloadersShareLocalRepository() throws Exception {
+        List<GAV> gavs = List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0"));
+        Callable<List<Path>> download = () -> {
+            try (WanakuMavenDownloader downloader = WanakuMavenDownloader.Builder.newBuilder()
+                    .localRepository(tempRepo)
+                    .build()) {
+                return downloader.download(gavs);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<List<Path>>> results = executor.invokeAll(List.of(download, download, download));
+            List<Path> expected = results.get(0).get();
+            for (Future<List<Path>> result : results) {
+                assertEquals(expected, result.get());
+            }
+            assertTrue(Files.size(expected.get(0)) > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void downloadersShareClassLoaderThroughRegistry() {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+        List<GAV> gavs = List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0"));
+
+        try (WanakuMavenDownloader first = sharingDownloader(registry);
+                WanakuMavenDownloader second = sharingDownloader(registry)) {
+            first.download(gavs);
+            second.download(gavs);
+
+            assertSame(first.getClassLoader(), second.getClassLoader());
+            assertEquals(1, registry.size());
+        }
+
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void laterDownloadsKeepClassesLoadedFromEarlierOnes() throws Exception {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+
+        try (WanakuMavenDownloader downloader = sharingDownloader(registry)) {
+            downloader.download(List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0")));
+            ClassLoader first = downloader.getClassLoader();
+            Class<?> loaded = first.loadClass("org.apache.commons.lang3.StringUtils");
+
+            downloader.download(List.of(GAV.parse("org.apache.commons:commons-collections4:4.4")));
+
+            assertSame(first, downloader.getClassLoader().getParent());
+            assertSame(loaded, downloader.getClassLoader().loadClass("org.apache.commons.lang3.StringUtils"));
+            assertDoesNotThrow(() -> first.loadClass("org.apache.commons.lang3.ArrayUtils"));
+            assertEquals(2, registry.size());
+        }
+
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void cdsOptionsAreWrittenOnceForTheFinalClasspath(@TempDir Path cds) throws Exception {
+        Path argsFile = cds.resolve("sys1." + CdsArchive.ARGS_FILE).toAbsolutePath();
+
+        try (WanakuMavenDownloader downloader = WanakuMavenDownloader.Builder.newBuilder()
+                .localRepository(tempRepo)
+                .cdsDirectory(cds)
+                .cdsName("sys1")
+                .build()) {
+            List<Path> paths =
+                    new ArrayList<>(downloader.download(List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0"))));
+            paths.addAll(downloader.download(List.of(GAV.parse("org.apache.commons:commons-collections4:4.4"))));
+            assertFalse(Files.exists(argsFile), "Nothing is written before the dependency set is final");
+
+            assertEquals(argsFile, downloader.writeCdsArgsFile());
+            assertEquals(CdsArchive.forArtifacts(cds, "sys1", paths).jvmOptions(), Files.readAllLines(argsFile));
+        }
+
+        assertFalse(Files.exists(cds.resolve(CdsArchive.ARGS_FILE)));
+    }
+
+    @Test
+    void downloadAsyncCompletesWithResolvedArtifacts() throws Exception {
+        try (WanakuMavenDownloader downloader = new WanakuMavenDownloader(Collections.emptyList(), tempRepo)) {
+            CompletableFuture<List<Path>> future =
+                    downloader.downloadAsync(List.of(GAV.parse("org.apache.commons:commons-lang3:3.14.0")));
+
+            assertFalse(future.get(1, TimeUnit.MINUTES).isEmpty());
+            assertDoesNotThrow(() -> downloader.getClassLoader().loadClass("org.apache.commons.lang3.StringUtils"));
+        }
+    }
+
+    @Test
+    void downloadAsyncFailsOnInvalidArtifact() {
+        try (WanakuMavenDownloader downloader = new WanakuMavenDownloader(Collections.emptyList(), tempRepo)) {
+            CompletableFuture<List<Path>> future =
+                    downloader.downloadAsync(List.of(GAV.parse("com.nonexistent:does-not-exist:999.999.999")));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.MINUTES));
+            assertInstanceOf(DependencyDownloadException.class, e.getCause());
+        }
+    }
+
     @Test
     void downloadThrowsOnInvalidArtifact() {
         try (WanakuMavenDownloader downloader = new WanakuMavenDownloader(Collections.emptyList(), tempRepo)) {
@@ -67,4 +296,18 @@ class WanakuMavenDownloaderTest {
                     () -> downloader.download(List.of(GAV.parse("com.nonexistent:does-not-exist:999.999.999"))));
         }
     }
+
+    private WanakuMavenDownloader sharingDownloader(ClassLoaderRegistry registry) {
+        return WanakuMavenDownloader.Builder.newBuilder()
+                .localRepository(tempRepo)
+                .classLoaderRegistry(registry)
+                .build();
+    }
+
+    private WanakuMavenDownloader lockfileDownloader(Path lockDir) {
+        return WanakuMavenDownloader.Builder.newBuilder()
+                .localRepository(tempRepo)
+                .lockfileDirectory(lockDir)
+                .build();
+    }
 }
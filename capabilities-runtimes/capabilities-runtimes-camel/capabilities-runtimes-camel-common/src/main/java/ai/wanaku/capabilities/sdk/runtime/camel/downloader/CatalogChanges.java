@@ -0,0 +1,46 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of extracting a service catalog with {@link ServiceCatalogExtractor}: the resources of the system,
+ * and which of the extracted files changed on disk. Files whose content was already up to date are not
+ * rewritten, so a runtime can use this change set to reload only what changed.
+ *
+ * @param resources the resource types of the system, mapped to their extracted file paths
+ * @param added     the files that did not exist before the extraction
+ * @param modified  the existing files whose content changed
+ * @param unchanged the existing files that were left untouched
+ */
+public record CatalogChanges(
+        Map<ResourceType, Path> resources, Set<Path> added, Set<Path> modified, Set<Path> unchanged) {
+
+    public CatalogChanges {
+        resources = Map.copyOf(resources);
+        added = Set.copyOf(added);
+        modified = Set.copyOf(modified);
+        unchanged = Set.copyOf(unchanged);
+    }
+
+    /**
+     * Returns whether any extracted file was added or modified.
+     *
+     * @return {@code true} if the extraction changed files on disk
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !modified.isEmpty();
+    }
+
+    /**
+     * Returns whether the file of the given resource type was added or modified.
+     *
+     * @param type the resource type
+     * @return {@code true} if the resource of that type changed on disk
+     */
+    public boolean isChanged(ResourceType type) {
+        Path path = resources.get(type);
+        return path != null && (added.contains(path) || modified.contains(path));
+    }
+}
@@ -3,23 +3,26 @@ package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Base64;
-import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ai.wanaku.capabilities.sdk.api.types.DataStore;
-import ai.wanaku.capabilities.sdk.api.types.WanakuResponse;
+import ai.wanaku.capabilities.sdk.services.DataStoreDownload;
 import ai.wanaku.capabilities.sdk.services.ServicesHttpClient;
 
 public class DataStoreDownloader implements Downloader {
     private static final Logger LOG = LoggerFactory.getLogger(DataStoreDownloader.class);
     private final ServicesHttpClient servicesHttpClient;
     private final Path dataDir;
+    private final ResourceCache resourceCache;
 
     public DataStoreDownloader(ServicesHttpClient servicesHttpClient, Path dataDir) {
+        this(servicesHttpClient, dataDir, null);
+    }
+
+    public DataStoreDownloader(ServicesHttpClient servicesHttpClient, Path dataDir, ResourceCache resourceCache) {
         this.servicesHttpClient = servicesHttpClient;
         this.dataDir = dataDir;
+        this.resourceCache = resourceCache;
     }
 
     @Override
@@ -28,32 +31,55 @@ public class DataStoreDownloader implements Downloader {
         final String resourceFileName = resourceName.ref().getHost();
         LOG.debug("Downloading resource: {}", resourceName.ref().getPath());
 
-        // Retrieve the data stores from the API
-        WanakuResponse<List<DataStore>> response = servicesHttpClient.getDataStoresByName(resourceFileName);
-
-        if (response == null || response.data() == null || response.data().isEmpty()) {
+        Path filePath = dataDir.resolve(resourceFileName);
+        if (resourceCache != null) {
+            if (!downloadCached(resourceFileName, filePath)) {
+                LOG.warn("No data found for resource: {}", resourceName);
+                return;
+            }
+        } else if (!servicesHttpClient.downloadDataStoreByName(resourceFileName, filePath)) {
+            // Stream the data stores from the API, decoding them straight into the data directory
             LOG.warn("No data found for resource: {}", resourceName);
             return;
         }
 
-        List<DataStore> dataStores = response.data();
+        downloadedResources.put(resourceName.resourceType(), filePath);
+        LOG.info("Successfully downloaded resource '{}' to {}", resourceName, filePath.toAbsolutePath());
+    }
 
-        // Process each DataStore entry (typically there should be one per resource name)
-        for (DataStore dataStore : dataStores) {
-            if (dataStore.getData() == null || dataStore.getData().isEmpty()) {
-                LOG.warn("DataStore entry for '{}' contains no data", resourceName);
-                continue;
-            }
+    /**
+     * Downloads the data store through the resource cache, revalidating the cached copy with its entity tag.
+     *
+     * @return {@code true} if the resource was placed at the given path
+     */
+    private boolean downloadCached(String name, Path filePath) throws Exception {
+        String key = "datastore:" + name;
+        ResourceCache.Entry cached = resourceCache.lookup(key);
 
-            // Decode from base64
-            byte[] decodedData = Base64.getDecoder().decode(dataStore.getData());
+        Path tmp = resourceCache.newTempFile();
+        try {
+            DataStoreDownload result =
+                    servicesHttpClient.downloadDataStoreByName(name, tmp, cached != null ? cached.etag() : null);
 
-            // Save to the configured data directory
-            Path filePath = dataDir.resolve(resourceFileName);
-            Files.write(filePath, decodedData);
-            downloadedResources.put(resourceName.resourceType(), filePath);
+            ResourceCache.Entry entry;
+            switch (result.status()) {
+                case NOT_MODIFIED -> {
+                    if (cached == null) {
+                        return false;
+                    }
+                    LOG.info("Resource '{}' is unchanged, using the cached copy", name);
+                    entry = cached;
+                }
+                case WRITTEN -> entry = resourceCache.store(key, tmp, result.etag());
+                default -> {
+                    return false;
+                }
+            }
 
-            LOG.info("Successfully downloaded resource '{}' to {}", resourceName, filePath.toAbsolutePath());
+            resourceCache.materialize(entry, filePath);
+            return true;
+        } finally {
+            Files.deleteIfExists(tmp);
         }
     }
 }
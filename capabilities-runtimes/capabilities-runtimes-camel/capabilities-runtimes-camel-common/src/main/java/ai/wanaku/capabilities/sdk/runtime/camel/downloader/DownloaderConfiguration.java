@@ -8,16 +8,33 @@ package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
 public class DownloaderConfiguration {
     private static final RetryPolicy NO_RETRY = new NoRetryPolicy();
 
+    /**
+     * The default number of resources downloaded concurrently.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_DOWNLOADS = 4;
+
     private final RetryPolicy retryPolicy;
+    private final int maxParallelDownloads;
 
     private DownloaderConfiguration(Builder builder) {
         this.retryPolicy = builder.retryPolicy;
+        this.maxParallelDownloads = builder.maxParallelDownloads;
     }
 
     public RetryPolicy getRetryPolicy() {
         return retryPolicy;
     }
 
+    /**
+     * Returns the maximum number of resources downloaded concurrently. Each download, including its
+     * retries, runs on its own virtual thread.
+     *
+     * @return the maximum number of concurrent downloads
+     */
+    public int getMaxParallelDownloads() {
+        return maxParallelDownloads;
+    }
+
     /**
      * Returns a default configuration with no retry.
      */
@@ -31,6 +48,7 @@ public class DownloaderConfiguration {
 
     public static final class Builder {
         private RetryPolicy retryPolicy = NO_RETRY;
+        private int maxParallelDownloads = DEFAULT_MAX_PARALLEL_DOWNLOADS;
 
         private Builder() {}
 
@@ -39,6 +57,21 @@ public class DownloaderConfiguration {
             return this;
         }
 
+        /**
+         * Sets the maximum number of resources downloaded concurrently. Use {@code 1} to download
+         * them one after another.
+         *
+         * @param maxParallelDownloads the maximum number of concurrent downloads
+         * @return this builder
+         */
+        public Builder maxParallelDownloads(int maxParallelDownloads) {
+            if (maxParallelDownloads < 1) {
+                throw new IllegalArgumentException("maxParallelDownloads must be at least 1");
+            }
+            this.maxParallelDownloads = maxParallelDownloads;
+            return this;
+        }
+
         public DownloaderConfiguration build() {
             return new DownloaderConfiguration(this);
         }
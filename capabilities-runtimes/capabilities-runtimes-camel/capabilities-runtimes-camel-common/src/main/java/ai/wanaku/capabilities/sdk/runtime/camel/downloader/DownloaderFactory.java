@@ -2,27 +2,109 @@ package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ai.wanaku.capabilities.sdk.services.ServicesHttpClient;
 
 /**
  * Factory that selects the appropriate {@link Downloader} for a given URI scheme.
- * Supported schemes are {@code datastore://} and {@code file://}. Downloader instances
- * are created lazily and reused for subsequent requests.
+ * The {@code datastore://}, {@code file://}, {@code http://} and {@code https://} schemes are supported out of
+ * the box, and further schemes can be added with {@link DownloaderProvider}s, discovered with
+ * {@link ServiceLoader} or registered explicitly. Downloader instances are created lazily and reused for
+ * subsequent requests. This class is thread-safe, so resources can be downloaded concurrently.
+ * <p>
+ * Caching is opt-in: when a {@link ResourceCache} is given, typically in the {@link #CACHE_DIR} of the data
+ * directory, resources downloaded from the router are kept in it, so that unchanged resources are not
+ * downloaded again when the capability restarts.
  */
 public class DownloaderFactory {
     private static final Logger LOG = LoggerFactory.getLogger(DownloaderFactory.class);
 
+    /**
+     * The directory, relative to the data directory, where downloaded resources are cached.
+     */
+    public static final String CACHE_DIR = ".cache";
+
     private final ServicesHttpClient servicesHttpClient;
     private final Path dataDir;
+    private final ResourceCache resourceCache;
+    private final MaterializationStrategy fileMaterialization;
 
-    private FileDownloader fileDownloader;
-    private DataStoreDownloader dataStoreDownloader;
+    private final Map<String, DownloaderProvider> providers = new ConcurrentHashMap<>();
+    private final Map<DownloaderProvider, Downloader> downloaders = new ConcurrentHashMap<>();
 
+    /**
+     * Creates a factory that downloads resources without caching them.
+     *
+     * @param servicesHttpClient the client used to download resources from the router
+     * @param dataDir the directory resources are downloaded to
+     */
     public DownloaderFactory(ServicesHttpClient servicesHttpClient, Path dataDir) {
+        this(servicesHttpClient, dataDir, null);
+    }
+
+    /**
+     * Creates a factory using the given resource cache.
+     *
+     * @param servicesHttpClient the client used to download resources from the router
+     * @param dataDir the directory resources are downloaded to
+     * @param resourceCache the cache of downloaded resources, or {@code null} to always download them
+     */
+    public DownloaderFactory(ServicesHttpClient servicesHttpClient, Path dataDir, ResourceCache resourceCache) {
+        this(servicesHttpClient, dataDir, resourceCache, MaterializationStrategy.COPY);
+    }
+
+    /**
+     * Creates a factory using the given resource cache and strategy for {@code file://} resources.
+     *
+     * @param servicesHttpClient the client used to download resources from the router
+     * @param dataDir the directory resources are downloaded to
+     * @param resourceCache the cache of downloaded resources, or {@code null} to always download them
+     * @param fileMaterialization how {@code file://} resources are placed into the data directory
+     */
+    public DownloaderFactory(
+            ServicesHttpClient servicesHttpClient,
+            Path dataDir,
+            ResourceCache resourceCache,
+            MaterializationStrategy fileMaterialization) {
         this.servicesHttpClient = servicesHttpClient;
         this.dataDir = dataDir;
+        this.resourceCache = resourceCache;
+        this.fileMaterialization = fileMaterialization;
+
+        registerProvider(DownloaderProvider.of(
+                f -> new DataStoreDownloader(f.getServicesHttpClient(), f.getDataDir(), f.getResourceCache()),
+                "datastore"));
+        registerProvider(
+                DownloaderProvider.of(f -> new FileDownloader(f.getDataDir(), f.getFileMaterialization()), "file"));
+        registerProvider(
+                DownloaderProvider.of(f -> new HttpDownloader(f.getDataDir(), f.getResourceCache()), "http", "https"));
+
+        for (DownloaderProvider provider : ServiceLoader.load(DownloaderProvider.class)) {
+            LOG.info(
+                    "Loading discovered downloader provider: {}",
+                    provider.getClass().getName());
+            registerProvider(provider);
+        }
+    }
+
+    /**
+     * Registers a provider for its schemes, replacing the provider previously registered for any of them.
+     *
+     * @param provider the provider to register
+     */
+    public void registerProvider(DownloaderProvider provider) {
+        for (String scheme : provider.schemes()) {
+            DownloaderProvider previous = providers.put(scheme.toLowerCase(), provider);
+            if (previous != null && previous != provider) {
+                LOG.debug("Replacing the downloader provider for the {} scheme", scheme);
+                downloaders.remove(previous);
+            }
+        }
     }
 
     public ServicesHttpClient getServicesHttpClient() {
@@ -33,35 +115,39 @@ public class DownloaderFactory {
         return dataDir;
     }
 
+    /**
+     * Returns the cache of downloaded resources.
+     *
+     * @return the resource cache, or {@code null} if caching is disabled
+     */
+    public ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    /**
+     * Returns how {@code file://} resources are placed into the data directory.
+     *
+     * @return the materialization strategy for local files
+     */
+    public MaterializationStrategy getFileMaterialization() {
+        return fileMaterialization;
+    }
+
     public Downloader getDownloader(URI uri) {
         if (uri == null || uri.getScheme() == null) {
             throw new IllegalArgumentException("URI and scheme cannot be null");
         }
 
         String scheme = uri.getScheme().toLowerCase();
-
-        return switch (scheme) {
-            case "datastore" -> getDataStoreDownloader();
-            case "file" -> getFileDownloader();
-            default ->
-                throw new IllegalArgumentException(
-                        "Unsupported URI scheme: " + scheme + ". Supported schemes: datastore://, file://");
-        };
-    }
-
-    private DataStoreDownloader getDataStoreDownloader() {
-        if (dataStoreDownloader == null) {
-            LOG.debug("Creating DataStoreDownloader instance");
-            dataStoreDownloader = new DataStoreDownloader(servicesHttpClient, dataDir);
+        DownloaderProvider provider = providers.get(scheme);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unsupported URI scheme: " + scheme + ". Supported schemes: "
+                    + String.join(", ", new TreeSet<>(providers.keySet())));
         }
-        return dataStoreDownloader;
-    }
 
-    private FileDownloader getFileDownloader() {
-        if (fileDownloader == null) {
-            LOG.debug("Creating FileDownloader instance");
-            fileDownloader = new FileDownloader(dataDir);
-        }
-        return fileDownloader;
+        return downloaders.computeIfAbsent(provider, p -> {
+            LOG.debug("Creating the downloader for the {} scheme", scheme);
+            return p.create(this);
+        });
     }
 }
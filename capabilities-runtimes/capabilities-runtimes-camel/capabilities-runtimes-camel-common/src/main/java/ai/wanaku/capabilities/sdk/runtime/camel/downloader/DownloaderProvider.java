@@ -0,0 +1,54 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Service provider interface for {@link Downloader} implementations.
+ * <p>
+ * Providers are discovered with {@link java.util.ServiceLoader}, by listing them in
+ * {@code META-INF/services/ai.wanaku.capabilities.sdk.runtime.camel.downloader.DownloaderProvider}, or can be
+ * registered explicitly with {@link DownloaderFactory#registerProvider(DownloaderProvider)}. The
+ * {@link DownloaderFactory} creates at most one downloader per provider, the first time one of its schemes is
+ * requested, so downloaders must be thread-safe.
+ */
+public interface DownloaderProvider {
+
+    /**
+     * Returns the URI schemes this provider handles, in lower case.
+     *
+     * @return the supported URI schemes
+     */
+    Set<String> schemes();
+
+    /**
+     * Creates the downloader for this provider's schemes.
+     *
+     * @param factory the factory requesting the downloader, giving access to the data directory, the resource
+     *                cache and the router client
+     * @return the downloader
+     */
+    Downloader create(DownloaderFactory factory);
+
+    /**
+     * Creates a provider from the given function.
+     *
+     * @param creator the function creating the downloader
+     * @param schemes the URI schemes the downloader handles
+     * @return the provider
+     */
+    static DownloaderProvider of(Function<DownloaderFactory, Downloader> creator, String... schemes) {
+        Set<String> supported = Set.of(schemes);
+        return new DownloaderProvider() {
+            @Override
+            public Set<String> schemes() {
+                return supported;
+            }
+
+            @Override
+            public Downloader create(DownloaderFactory factory) {
+                return creator.apply(factory);
+            }
+        };
+    }
+}
@@ -5,21 +5,27 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Downloader for local files using the file:// URI scheme.
- * Copies files from the local filesystem to the data directory.
+ * Places files from the local filesystem into the data directory according to a
+ * {@link MaterializationStrategy}, copying them by default.
  */
 public class FileDownloader implements Downloader {
     private static final Logger LOG = LoggerFactory.getLogger(FileDownloader.class);
     private final Path dataDir;
+    private final MaterializationStrategy strategy;
 
     public FileDownloader(Path dataDir) {
+        this(dataDir, MaterializationStrategy.COPY);
+    }
+
+    public FileDownloader(Path dataDir, MaterializationStrategy strategy) {
         this.dataDir = dataDir;
+        this.strategy = strategy;
     }
 
     @Override
@@ -39,16 +45,15 @@ public class FileDownloader implements Downloader {
             throw new IOException("Path is not a regular file: " + sourceFile.toAbsolutePath());
         }
 
-        // Extract filename and copy to data directory
+        // Extract filename and place it in the data directory
         String fileName = sourceFile.getFileName().toString();
-        Path targetPath = dataDir.resolve(fileName);
-
-        Files.copy(sourceFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        Path targetPath = strategy.materialize(sourceFile, dataDir.resolve(fileName));
         downloadedResources.put(resourceName.resourceType(), targetPath);
 
         LOG.info(
-                "Successfully copied file resource '{}' to {}",
+                "Successfully placed file resource '{}' at {} ({})",
                 sourceFile.toAbsolutePath(),
-                targetPath.toAbsolutePath());
+                targetPath.toAbsolutePath(),
+                strategy);
     }
 }
@@ -0,0 +1,358 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+import ai.wanaku.capabilities.sdk.common.exceptions.WanakuWebException;
+
+/**
+ * Downloader for resources served over {@code http://} and {@code https://}, such as route bundles published
+ * on an artifact server.
+ * <p>
+ * Downloads are conditional: with a {@link ResourceCache}, the entity tag of the cached copy is sent back and
+ * the cached copy is reused when the server reports it unchanged. Content is first written to a partial file
+ * next to the target, along with the validator of the response, so a download interrupted midway is resumed
+ * with a {@code Range} request instead of starting over. Large resources served by a server accepting ranges
+ * are downloaded as several ranges in parallel.
+ */
+public class HttpDownloader implements Downloader {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpDownloader.class);
+
+    /**
+     * The default size, in bytes, from which resources are downloaded in parallel ranges.
+     */
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 16L * 1024 * 1024;
+
+    /**
+     * The default number of ranges large resources are split into.
+     */
+    public static final int DEFAULT_PARALLEL_RANGES = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final HttpClient httpClient;
+    private final Path dataDir;
+    private final ResourceCache resourceCache;
+    private final long parallelThreshold;
+    private final int parallelRanges;
+
+    /**
+     * The response to a {@code HEAD} request.
+     *
+     * @param status    the status code
+     * @param length    the content length, or {@code -1} if unknown
+     * @param ranges    whether the server accepts byte ranges
+     * @param etag      the entity tag, or {@code null}
+     * @param validator the validator to send in {@code If-Range}, or {@code null} if there is no strong one
+     */
+    private record Head(int status, long length, boolean ranges, String etag, String validator) {}
+
+    public HttpDownloader(Path dataDir, ResourceCache resourceCache) {
+        this(
+                HttpClient.newBuilder()
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .build(),
+                dataDir,
+                resourceCache,
+                DEFAULT_PARALLEL_THRESHOLD,
+                DEFAULT_PARALLEL_RANGES);
+    }
+
+    /**
+     * Creates a downloader.
+     *
+     * @param httpClient        the client used for the requests
+     * @param dataDir           the directory resources are downloaded to
+     * @param resourceCache     the cache of downloaded resources, or {@code null} to always download them
+     * @param parallelThreshold the size, in bytes, from which resources are downloaded in parallel ranges
+     * @param parallelRanges    the number of ranges large resources are split into
+     */
+    public HttpDownloader(
+            HttpClient httpClient,
+            Path dataDir,
+            ResourceCache resourceCache,
+            long parallelThreshold,
+            int parallelRanges) {
+        if (parallelRanges < 1) {
+            throw new IllegalArgumentException("parallelRanges must be at least 1");
+        }
+        this.httpClient = httpClient;
+        this.dataDir = dataDir;
+        this.resourceCache = resourceCache;
+        this.parallelThreshold = parallelThreshold;
+        this.parallelRanges = parallelRanges;
+    }
+
+    @Override
+    public void downloadResource(ResourceRefs<URI> resourceName, Map<ResourceType, Path> downloadedResources)
+            throws Exception {
+        URI uri = resourceName.ref();
+        Path target = dataDir.resolve(fileName(uri));
+        Path partial = dataDir.resolve("." + target.getFileName() + ".part");
+        Path validatorFile = dataDir.resolve("." + target.getFileName() + ".part.validator");
+
+        String key = "http:" + uri;
+        ResourceCache.Entry cached = resourceCache != null ? resourceCache.lookup(key) : null;
+        String cachedEtag = cached != null ? cached.etag() : null;
+
+        Files.createDirectories(dataDir);
+        Head head = head(uri, cachedEtag);
+
+        boolean modified;
+        String etag;
+        if (head.status() == 304) {
+            modified = false;
+            etag = cachedEtag;
+        } else if (head.ranges()
+                && head.validator() != null
+                && head.length() >= parallelThreshold
+                && parallelRanges > 1
+                && !Files.exists(partial)) {
+            downloadRanges(uri, head, partial);
+            modified = true;
+            etag = head.etag();
+        } else {
+            etag = downloadResumable(uri, cachedEtag, partial, validatorFile);
+            modified = etag != null || Files.exists(partial);
+            if (!modified) {
+                etag = cachedEtag;
+            }
+        }
+
+        if (!modified) {
+            LOG.info("Resource '{}' is unchanged, using the cached copy", uri);
+            resourceCache.materialize(cached, target);
+        } else if (resourceCache != null) {
+            resourceCache.materialize(resourceCache.store(key, partial, etag), target);
+        } else {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.deleteIfExists(validatorFile);
+
+        downloadedResources.put(resourceName.resourceType(), target);
+        LOG.info("Successfully downloaded resource '{}' to {}", uri, target.toAbsolutePath());
+    }
+
+    private Head head(URI uri, String cachedEtag) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).method("HEAD", HttpRequest.BodyPublishers.noBody());
+        if (cachedEtag != null) {
+            builder.header("If-None-Match", cachedEtag);
+        }
+
+        HttpResponse<Void> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+        int status = response.statusCode();
+        if (status != 304 && (status < 200 || status >= 300)) {
+            // Some servers do not implement HEAD: fall back to a plain conditional GET
+            LOG.debug("HEAD {} returned {}, downloading without ranges", uri, status);
+            return new Head(status, -1, false, null, null);
+        }
+
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        return new Head(
+                status,
+                response.headers().firstValueAsLong("Content-Length").orElse(-1),
+                response.headers().allValues("Accept-Ranges").stream().anyMatch(v -> v.contains("bytes")),
+                etag,
+                validator(response));
+    }
+
+    /**
+     * Downloads the resource with a single request, resuming the partial file when there is one.
+     *
+     * @return the entity tag of the response, or {@code null} if the cached copy is unchanged or the response
+     *         has no entity tag, in which case the partial file tells whether content was downloaded
+     */
+    private String downloadResumable(URI uri, String cachedEtag, Path partial, Path validatorFile)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET();
+        if (cachedEtag != null) {
+            builder.header("If-None-Match", cachedEtag);
+        }
+
+        long offset = 0;
+        if (Files.exists(partial) && Files.exists(validatorFile)) {
+            offset = Files.size(partial);
+            if (offset > 0) {
+                LOG.info("Resuming the download of {} from byte {}", uri, offset);
+                builder.header("Range", "bytes=" + offset + "-")
+                        .header("If-Range", Files.readString(validatorFile, StandardCharsets.UTF_8));
+            }
+        }
+
+        HttpResponse<InputStream> response =
+                httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            if (status == 304) {
+                Files.deleteIfExists(partial);
+                return null;
+            }
+            if (status == 416) {
+                // The partial file does not match the resource anymore: start over on the next attempt
+                Files.deleteIfExists(partial);
+                Files.deleteIfExists(validatorFile);
+                throw new WanakuWebException("Unable to resume the download of " + uri, status);
+            }
+            if (status < 200 || status >= 300) {
+                throw new WanakuWebException("HTTP error: " + status + " while downloading " + uri, status);
+            }
+
+            boolean resumed = status == 206 && offset > 0 && rangeStart(response) == offset;
+            if (status == 206 && !resumed) {
+                throw new WanakuWebException("Unexpected range returned for " + uri, status);
+            }
+
+            String validator = validator(response);
+            if (validator != null) {
+                Files.writeString(validatorFile, validator, StandardCharsets.UTF_8);
+            } else {
+                Files.deleteIfExists(validatorFile);
+            }
+
+            StandardOpenOption mode = resumed ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (OutputStream os =
+                    Files.newOutputStream(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                body.transferTo(os);
+            }
+            return response.headers().firstValue("ETag").orElse(null);
+        }
+    }
+
+    /**
+     * Downloads the resource as several ranges in parallel, each written at its offset in the partial file.
+     */
+    private void downloadRanges(URI uri, Head head, Path partial) throws Exception {
+        long length = head.length();
+        long rangeSize = (length + parallelRanges - 1) / parallelRanges;
+        LOG.info("Downloading {} ({} bytes) in {} parallel ranges", uri, length, parallelRanges);
+
+        try (FileChannel channel = FileChannel.open(
+                        partial,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> ranges = new ArrayList<>();
+            for (long start = 0; start < length; start += rangeSize) {
+                long first = start;
+                long last = Math.min(start + rangeSize, length) - 1;
+                ranges.add(executor.submit(() -> {
+                    downloadRange(uri, head.validator(), channel, first, last);
+                    return null;
+                }));
+            }
+
+            try {
+                for (Future<?> range : ranges) {
+                    range.get();
+                }
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        } catch (ExecutionException e) {
+            Files.deleteIfExists(partial);
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw new WanakuException("Unable to download " + uri, e.getCause());
+        } catch (Exception e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+    }
+
+    private void downloadRange(URI uri, String validator, FileChannel channel, long first, long last)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Range", "bytes=" + first + "-" + last)
+                .header("If-Range", validator)
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 206 || rangeStart(response) != first) {
+                // A full response means the resource changed since it was inspected
+                throw new WanakuWebException(
+                        "Unable to download bytes " + first + "-" + last + " of " + uri, response.statusCode());
+            }
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long expected = last + 1 - first;
+            long received = 0;
+            int read;
+            // Stop once past the range: a server ignoring it would overwrite the following ranges
+            while (received <= expected && (read = body.read(buffer)) != -1) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, (int) Math.min(read, expected - received));
+                long position = first + received;
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+                received += read;
+            }
+            if (received != expected) {
+                throw new WanakuException("Incomplete range " + first + "-" + last + " of " + uri + ": got "
+                        + (received > expected ? "more than " + expected : received) + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Returns the validator to send in {@code If-Range}: a strong entity tag or the last modification date.
+     */
+    private static String validator(HttpResponse<?> response) {
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.headers().firstValue("Last-Modified").orElse(null);
+    }
+
+    private static long rangeStart(HttpResponse<?> response) {
+        // Content-Range: bytes <first>-<last>/<length>
+        String contentRange = response.headers().firstValue("Content-Range").orElse("");
+        int space = contentRange.indexOf(' ');
+        int dash = contentRange.indexOf('-', space + 1);
+        if (space < 0 || dash < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(space + 1, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String fileName(URI uri) {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            throw new IllegalArgumentException("Unable to determine the file name of " + uri);
+        }
+        return name;
+    }
+}
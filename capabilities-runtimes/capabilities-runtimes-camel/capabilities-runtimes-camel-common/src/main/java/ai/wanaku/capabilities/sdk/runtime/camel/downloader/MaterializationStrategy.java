@@ -0,0 +1,109 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controls how a local file is placed into the data directory. Every strategy but {@link #IN_PLACE} falls back
+ * to copying the file when the file system does not support it, for instance when the source is on another
+ * device.
+ */
+public enum MaterializationStrategy {
+    /** Copies the file. */
+    COPY,
+    /** Creates a hard link to the file, sharing its content without any I/O. */
+    HARD_LINK,
+    /** Creates a symbolic link to the file, so that updates to the source are visible. */
+    SYMLINK,
+    /**
+     * Clones the file with a copy-on-write reflink ({@code cp --reflink=always}) on file systems supporting it,
+     * such as Btrfs or XFS.
+     */
+    REFLINK,
+    /** Uses the file where it is, without placing anything in the data directory. */
+    IN_PLACE;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaterializationStrategy.class);
+
+    /**
+     * Places the source file at the target path, replacing any existing file.
+     *
+     * @param source the file to place
+     * @param target the path to place it at
+     * @return the path the content is available at: the source for {@link #IN_PLACE}, the target otherwise
+     * @throws IOException if the file cannot be placed
+     */
+    public Path materialize(Path source, Path target) throws IOException {
+        if (this == IN_PLACE) {
+            return source;
+        }
+
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+
+        Path tmp = Files.createTempFile(dir, "." + target.getFileName(), ".tmp");
+        try {
+            Files.delete(tmp);
+            if (!link(source, tmp)) {
+                Files.copy(source, tmp);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    private boolean link(Path source, Path tmp) throws IOException {
+        try {
+            switch (this) {
+                case HARD_LINK -> Files.createLink(tmp, source);
+                case SYMLINK -> Files.createSymbolicLink(tmp, source.toAbsolutePath());
+                case REFLINK -> {
+                    return reflink(source, tmp);
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            LOG.debug("Unable to {} {} ({}), copying it instead", this, source, e.getMessage());
+            Files.deleteIfExists(tmp);
+            return false;
+        }
+    }
+
+    private static boolean reflink(Path source, Path tmp) throws IOException {
+        Process process;
+        try {
+            process = new ProcessBuilder("cp", "--reflink=always", source.toString(), tmp.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            LOG.debug("Unable to run cp to reflink {} ({}), copying it instead", source, e.getMessage());
+            return false;
+        }
+
+        try {
+            if (process.waitFor(30, TimeUnit.SECONDS) && process.exitValue() == 0) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            process.destroy();
+        }
+
+        LOG.debug("Unable to reflink {}, copying it instead", source);
+        Files.deleteIfExists(tmp);
+        return false;
+    }
+}
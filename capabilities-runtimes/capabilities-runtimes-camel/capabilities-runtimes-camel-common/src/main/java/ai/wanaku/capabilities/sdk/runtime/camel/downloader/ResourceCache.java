@@ -0,0 +1,252 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+
+/**
+ * A content-addressed cache for the resources downloaded from the router.
+ * <p>
+ * Downloaded content is stored once under its SHA-256, and an index maps each resource (for instance, a data
+ * store or a service catalog name) to its current content and the entity tag the router returned for it. On
+ * restart, downloaders send that entity tag back, and when the router confirms the content is unchanged, the
+ * cached content is hard-linked into place instead of being downloaded again. Content is copied instead when
+ * hard links are not supported.
+ * <p>
+ * Cached content is verified against its SHA-256 before it is reused, so a corrupted or modified entry is
+ * downloaded again.
+ * <p>
+ * Several processes can share a cache directory. Updates hold a lock on the directory, re-read the index and
+ * apply their change to it, so content another process still refers to is never deleted.
+ */
+public class ResourceCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceCache.class);
+
+    private static final String INDEX_FILE = "index.properties";
+    private static final String LOCK_FILE = "index.lock";
+    private static final String BLOBS_DIR = "sha256";
+
+    /**
+     * File locks are held by the whole process, so caches sharing a directory in the same process also take
+     * this lock.
+     */
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Path blobs;
+    private final Path indexFile;
+    private final Path lockFile;
+    private final Properties index = new Properties();
+
+    /**
+     * A cached resource.
+     *
+     * @param sha256 the SHA-256 of the content
+     * @param etag   the entity tag the router returned with the content, or {@code null}
+     * @param path   the cached content
+     */
+    public record Entry(String sha256, String etag, Path path) {}
+
+    /**
+     * Creates a cache in the given directory, loading the index it already contains.
+     *
+     * @param directory the cache directory
+     */
+    public ResourceCache(Path directory) {
+        this.directory = directory;
+        this.blobs = directory.resolve(BLOBS_DIR);
+        this.indexFile = directory.resolve(INDEX_FILE);
+        this.lockFile = directory.resolve(LOCK_FILE);
+
+        reloadIndex();
+    }
+
+    /**
+     * Returns the cached content of the given resource, if any and still intact.
+     *
+     * @param key the resource key
+     * @return the cache entry, or {@code null}
+     */
+    public synchronized Entry lookup(String key) {
+        reloadIndex();
+        String sha256 = index.getProperty(key + ".sha256");
+        if (sha256 == null) {
+            return null;
+        }
+
+        Path blob = blobs.resolve(sha256);
+        try {
+            if (Files.isRegularFile(blob) && sha256.equals(sha256(blob))) {
+                return new Entry(sha256, index.getProperty(key + ".etag"), blob);
+            }
+        } catch (IOException e) {
+            LOG.debug("Unable to verify cached content {}: {}", blob, e.getMessage());
+        }
+
+        LOG.warn("Discarding the cached content of '{}': it is missing or corrupted", key);
+        remove(key);
+        return null;
+    }
+
+    /**
+     * Creates an empty temporary file in the cache directory, where new content can be downloaded to. Being on
+     * the same file system as the cache, it can be moved into the cache without copying.
+     *
+     * @return the temporary file
+     * @throws IOException if the file cannot be created
+     */
+    public Path newTempFile() throws IOException {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "download-", ".tmp");
+    }
+
+    /**
+     * Moves newly downloaded content into the cache and records it as the current content of the resource.
+     * The content it replaces is deleted unless another resource still refers to it.
+     *
+     * @param key     the resource key
+     * @param content the downloaded content, which is moved into the cache
+     * @param etag    the entity tag the router returned with the content, or {@code null}
+     * @return the cache entry
+     * @throws IOException if the content cannot be stored
+     */
+    public synchronized Entry store(String key, Path content, String etag) throws IOException {
+        String sha256 = sha256(content);
+        Path blob = blobs.resolve(sha256);
+
+        withLock(() -> {
+            Files.createDirectories(blobs);
+            if (Files.exists(blob)) {
+                Files.delete(content);
+            } else {
+                Files.move(content, blob, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            String previous = index.getProperty(key + ".sha256");
+            index.setProperty(key + ".sha256", sha256);
+            if (etag != null) {
+                index.setProperty(key + ".etag", etag);
+            } else {
+                index.remove(key + ".etag");
+            }
+            saveIndex();
+
+            if (previous != null && !previous.equals(sha256)) {
+                deleteIfUnreferenced(previous);
+            }
+        });
+        return new Entry(sha256, etag, blob);
+    }
+
+    /**
+     * Places the cached content at the given path, replacing any existing file. The content is hard-linked when
+     * possible, and copied otherwise.
+     *
+     * @param entry  the cache entry
+     * @param target the path to place the content at
+     * @throws IOException if the content cannot be placed
+     */
+    public void materialize(Entry entry, Path target) throws IOException {
+        MaterializationStrategy.HARD_LINK.materialize(entry.path(), target);
+    }
+
+    private void remove(String key) {
+        try {
+            withLock(() -> {
+                String sha256 = (String) index.remove(key + ".sha256");
+                index.remove(key + ".etag");
+                saveIndex();
+                if (sha256 != null) {
+                    deleteIfUnreferenced(sha256);
+                }
+            });
+        } catch (IOException e) {
+            LOG.warn("Unable to update the resource cache index {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void apply() throws IOException;
+    }
+
+    /**
+     * Applies an update to the index while holding the lock on the cache directory, on the index as it is on
+     * disk, so that the changes other processes made in the meantime are kept.
+     */
+    private void withLock(IndexUpdate update) throws IOException {
+        Files.createDirectories(directory);
+        synchronized (PROCESS_LOCKS.computeIfAbsent(lockFile.toAbsolutePath().normalize(), k -> new Object())) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock ignored = channel.lock()) {
+                reloadIndex();
+                update.apply();
+            }
+        }
+    }
+
+    private void reloadIndex() {
+        Properties current = new Properties();
+        if (Files.exists(indexFile)) {
+            try (InputStream is = Files.newInputStream(indexFile)) {
+                current.load(is);
+            } catch (IOException e) {
+                LOG.warn("Unable to read the resource cache index {}: {}", indexFile, e.getMessage());
+                return;
+            }
+        }
+        index.clear();
+        index.putAll(current);
+    }
+
+    private void deleteIfUnreferenced(String sha256) throws IOException {
+        for (String name : index.stringPropertyNames()) {
+            if (name.endsWith(".sha256") && sha256.equals(index.getProperty(name))) {
+                return;
+            }
+        }
+        Files.deleteIfExists(blobs.resolve(sha256));
+    }
+
+    private void saveIndex() throws IOException {
+        Path tmp = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                index.store(os, "Wanaku resource cache");
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new WanakuException("SHA-256 is not available", e);
+        }
+
+        try (InputStream is = new DigestInputStream(Files.newInputStream(file), digest)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
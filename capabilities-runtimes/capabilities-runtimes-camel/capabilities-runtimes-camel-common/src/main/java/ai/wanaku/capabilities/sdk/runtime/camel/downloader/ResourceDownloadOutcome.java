@@ -0,0 +1,27 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The outcome of downloading a single resource with {@link ResourceDownloaderCallback}.
+ *
+ * @param resource the downloaded resource reference
+ * @param path the local path of the resource, or {@code null} if it could not be downloaded
+ * @param attempts the number of attempts made, including the first one
+ * @param duration the time spent on the download, including the delays between retries
+ * @param failure the last failure, or {@code null} if the download succeeded
+ */
+public record ResourceDownloadOutcome(
+        ResourceRefs<URI> resource, Path path, int attempts, Duration duration, Exception failure) {
+
+    /**
+     * Returns whether the resource was downloaded.
+     *
+     * @return {@code true} if the resource is available locally
+     */
+    public boolean isSuccess() {
+        return path != null;
+    }
+}
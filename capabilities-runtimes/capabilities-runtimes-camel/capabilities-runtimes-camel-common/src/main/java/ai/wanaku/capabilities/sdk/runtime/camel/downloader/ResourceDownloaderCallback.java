@@ -2,31 +2,54 @@ package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
 
 import java.net.URI;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ai.wanaku.capabilities.sdk.api.discovery.DiscoveryCallback;
 import ai.wanaku.capabilities.sdk.api.discovery.RegistrationManager;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
 import ai.wanaku.capabilities.sdk.api.types.providers.ServiceTarget;
 import ai.wanaku.capabilities.sdk.common.exceptions.WanakuWebException;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
 
 /**
  * A {@link DiscoveryCallback} that downloads a set of resources after successful service registration.
- * Downloads are executed with configurable retry logic and the caller can block on
- * {@link #waitForDownloads()} until all resources have been fetched.
+ * Resources are downloaded concurrently on virtual threads, up to
+ * {@link DownloaderConfiguration#getMaxParallelDownloads()} at a time, each with its own retries. The downloads
+ * are only started by {@link #onRegistration(RegistrationManager, ServiceTarget)}, which returns without waiting
+ * for them. The caller can block on {@link #waitForDownloads()} until all resources have been fetched, and then
+ * inspect {@link #getOutcomes()}.
+ * <p>
+ * Callers that can make progress with a subset of the resources can instead wait on
+ * {@link #whenDownloaded(ResourceType)}. Dependencies are started first, so that their resolution
+ * (for instance, with {@code WanakuMavenDownloader.downloadAsync}) can overlap with the download of the
+ * remaining resources and the bootstrap of the runtime.
+ * <p>
+ * Each registration downloads the resources again. The futures, the outcomes and the downloaded resources then
+ * reflect the latest run only.
  */
 public class ResourceDownloaderCallback implements DiscoveryCallback {
     private static final Logger LOG = LoggerFactory.getLogger(ResourceDownloaderCallback.class);
 
     private final List<ResourceRefs<URI>> resources;
-    private final CountDownLatch countDownLatch = new CountDownLatch(1);
 
     private final DownloaderFactory downloaderFactory;
     private final DownloaderConfiguration configuration;
-    private Map<ResourceType, Path> downloadedResources = new HashMap<>();
+    private final Map<ResourceType, Path> downloadedResources = new ConcurrentHashMap<>();
+    private volatile Run run = new Run();
+    private boolean started;
 
     public ResourceDownloaderCallback(DownloaderFactory downloaderFactory, List<ResourceRefs<URI>> resources) {
         this(downloaderFactory, resources, DownloaderConfiguration.defaultConfig());
@@ -43,38 +66,93 @@ public class ResourceDownloaderCallback implements DiscoveryCallback {
 
     @Override
     public void onRegistration(RegistrationManager manager, ServiceTarget target) {
+        StartupTimeline.global().mark(StartupTimeline.REGISTRATION);
         downloadResources();
     }
 
     @Override
     public void onDeregistration(RegistrationManager manager, ServiceTarget target, int status) {}
 
+    /**
+     * Starts the download of all the resources and returns without waiting for them.
+     */
     private void downloadResources() {
+        Run current = nextRun();
         if (resources == null || resources.isEmpty()) {
             LOG.debug("No resources to download");
+            current.finish();
             return;
         }
 
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(configuration.getMaxParallelDownloads(), resources.size()),
+                Thread.ofVirtual().name("wanaku-resource-download-", 0).factory());
         try {
             LOG.info("Starting download of {} resource(s)", resources.size());
             RetryPolicy retryPolicy = configuration.getRetryPolicy();
 
-            for (ResourceRefs<URI> resourceName : resources) {
-                downloadWithRetry(resourceName, retryPolicy);
+            Map<ResourceType, List<CompletableFuture<ResourceDownloadOutcome>>> byType =
+                    new EnumMap<>(ResourceType.class);
+            for (ResourceRefs<URI> resource : downloadOrder()) {
+                CompletableFuture<ResourceDownloadOutcome> download = CompletableFuture.supplyAsync(
+                        () -> {
+                            try (StartupTimeline.Phase ignored =
+                                    StartupTimeline.global().begin(StartupTimeline.RESOURCE_DOWNLOAD)) {
+                                return downloadWithRetry(resource, retryPolicy);
+                            }
+                        },
+                        executor);
+                byType.computeIfAbsent(resource.resourceType(), k -> new ArrayList<>())
+                        .add(download.whenComplete((outcome, e) -> {
+                            if (outcome != null) {
+                                current.outcomes.add(outcome);
+                            }
+                        }));
             }
+
+            byType.forEach((type, downloads) -> CompletableFuture.allOf(downloads.toArray(CompletableFuture[]::new))
+                    .whenComplete((v, e) -> current.complete(type)));
+            CompletableFuture.allOf(
+                            byType.values().stream().flatMap(List::stream).toArray(CompletableFuture[]::new))
+                    .whenComplete((v, e) -> current.finish());
+        } catch (RuntimeException e) {
+            current.finish();
+            throw e;
         } finally {
-            countDownLatch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the state of the run about to start. The first run uses the initial state, so that futures obtained
+     * before the registration complete with it, while later runs start afresh.
+     */
+    private synchronized Run nextRun() {
+        if (started) {
+            downloadedResources.clear();
+            run = new Run();
         }
+        started = true;
+        return run;
+    }
+
+    private List<ResourceRefs<URI>> downloadOrder() {
+        List<ResourceRefs<URI>> ordered = new ArrayList<>(resources);
+        ordered.sort(Comparator.comparing(ref -> ref.resourceType() != ResourceType.DEPENDENCY_REF));
+        return ordered;
     }
 
-    private void downloadWithRetry(ResourceRefs<URI> resourceName, RetryPolicy retryPolicy) {
+    private ResourceDownloadOutcome downloadWithRetry(ResourceRefs<URI> resourceName, RetryPolicy retryPolicy) {
         int maxAttempts = 1 + retryPolicy.maxRetries();
+        long start = System.nanoTime();
 
         for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
                 Downloader downloader = downloaderFactory.getDownloader(resourceName.ref());
-                downloader.downloadResource(resourceName, downloadedResources);
-                return;
+                Map<ResourceType, Path> downloaded = new EnumMap<>(ResourceType.class);
+                downloader.downloadResource(resourceName, downloaded);
+                downloadedResources.putAll(downloaded);
+                return outcome(resourceName, downloaded.get(resourceName.resourceType()), attempt, start, null);
             } catch (WanakuWebException e) {
                 if (!handleRetryableFailure(e, resourceName, retryPolicy, attempt, maxAttempts)) {
                     if (e.getStatusCode() == 404) {
@@ -85,15 +163,23 @@ public class ResourceDownloaderCallback implements DiscoveryCallback {
                     } else {
                         LOG.error("Failed to download resource '{}': {}", resourceName, e.getMessage());
                     }
-                    return;
+                    return outcome(resourceName, null, attempt, start, e);
                 }
             } catch (Exception e) {
                 if (!handleRetryableFailure(e, resourceName, retryPolicy, attempt, maxAttempts)) {
                     LOG.error("Failed to download resource '{}': {}", resourceName, e.getMessage(), e);
-                    return;
+                    return outcome(resourceName, null, attempt, start, e);
                 }
             }
         }
+
+        return outcome(resourceName, null, maxAttempts, start, null);
+    }
+
+    private static ResourceDownloadOutcome outcome(
+            ResourceRefs<URI> resourceName, Path path, int attempts, long start, Exception failure) {
+        return new ResourceDownloadOutcome(
+                resourceName, path, attempts, Duration.ofNanos(System.nanoTime() - start), failure);
     }
 
     /**
@@ -125,18 +211,109 @@ public class ResourceDownloaderCallback implements DiscoveryCallback {
         return true;
     }
 
+    /**
+     * Blocks until all the resources have been processed, and logs the outcome of each download.
+     *
+     * @return {@code true} if all the resources were downloaded successfully
+     */
     public boolean waitForDownloads() {
         LOG.info("Waiting for resources to download");
+        Run current = run;
         try {
-            countDownLatch.await();
+            current.latch.await();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
 
-        return resources.size() == downloadedResources.size();
+        for (ResourceDownloadOutcome outcome : current.outcomes) {
+            LOG.info(
+                    "Resource '{}' {} after {} attempt(s) in {} ms",
+                    outcome.resource().ref(),
+                    outcome.isSuccess() ? "downloaded" : "failed",
+                    outcome.attempts(),
+                    outcome.duration().toMillis());
+        }
+        return current.isSuccess();
+    }
+
+    /**
+     * Returns the outcome of each download, in completion order. Resources still being downloaded are not
+     * included.
+     *
+     * @return the download outcomes
+     */
+    public List<ResourceDownloadOutcome> getOutcomes() {
+        return List.copyOf(run.outcomes);
     }
 
     public Map<ResourceType, Path> getDownloadedResources() {
         return downloadedResources;
     }
+
+    /**
+     * Returns a future that completes as soon as the resource of the given type has been downloaded,
+     * without waiting for the other resources.
+     *
+     * @param type the resource type
+     * @return a future completing with the path of the downloaded resource, with {@code null} if no resource
+     *         of that type was requested, or exceptionally if it could not be downloaded
+     */
+    public CompletableFuture<Path> whenDownloaded(ResourceType type) {
+        return run.futures.get(type);
+    }
+
+    /**
+     * Returns a future that completes once all the resources have been processed.
+     *
+     * @return a future completing with {@code true} if all the resources were downloaded successfully
+     */
+    public CompletableFuture<Boolean> whenAllDownloaded() {
+        Run current = run;
+        return CompletableFuture.allOf(current.futures.values().stream()
+                        .map(f -> f.exceptionally(e -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(v -> current.isSuccess());
+    }
+
+    /**
+     * The futures and outcomes of one download of all the resources.
+     */
+    private final class Run {
+        private final Map<ResourceType, CompletableFuture<Path>> futures = new EnumMap<>(ResourceType.class);
+        private final Queue<ResourceDownloadOutcome> outcomes = new ConcurrentLinkedQueue<>();
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private Run() {
+            for (ResourceType type : ResourceType.values()) {
+                futures.put(type, new CompletableFuture<>());
+            }
+        }
+
+        private void complete(ResourceType type) {
+            Path path = downloadedResources.get(type);
+            if (path != null) {
+                futures.get(type).complete(path);
+            } else {
+                futures.get(type)
+                        .completeExceptionally(new WanakuException("Unable to download the " + type + " resource"));
+            }
+        }
+
+        private void finish() {
+            for (ResourceType type : ResourceType.values()) {
+                if (resources == null || resources.stream().noneMatch(ref -> ref.resourceType() == type)) {
+                    futures.get(type).complete(null);
+                } else if (!futures.get(type).isDone()) {
+                    complete(type);
+                }
+            }
+            latch.countDown();
+        }
+
+        private boolean isSuccess() {
+            return resources == null
+                    || (outcomes.size() == resources.size()
+                            && outcomes.stream().allMatch(ResourceDownloadOutcome::isSuccess));
+        }
+    }
 }
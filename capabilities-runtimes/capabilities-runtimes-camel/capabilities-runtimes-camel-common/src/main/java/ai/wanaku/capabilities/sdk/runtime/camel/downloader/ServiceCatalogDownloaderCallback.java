@@ -1,31 +1,38 @@
 package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ai.wanaku.capabilities.sdk.api.discovery.DiscoveryCallback;
 import ai.wanaku.capabilities.sdk.api.discovery.RegistrationManager;
-import ai.wanaku.capabilities.sdk.api.types.DataStore;
-import ai.wanaku.capabilities.sdk.api.types.WanakuResponse;
 import ai.wanaku.capabilities.sdk.api.types.providers.ServiceTarget;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
+import ai.wanaku.capabilities.sdk.services.DataStoreDownload;
 
 /**
  * A {@link DiscoveryCallback} that downloads and extracts a service catalog after
- * successful registration. The catalog is fetched via the services HTTP client and
- * extracted into the local data directory using {@link ServiceCatalogExtractor}.
+ * successful registration. The catalog is streamed to a temporary file via the services HTTP client,
+ * and the files of the system are extracted into the local data directory using
+ * {@link ServiceCatalogExtractor}.
+ * <p>
+ * A runtime hosting several systems of the same catalog creates a single callback for all of them, and adds
+ * it to the registration manager of one of the systems only: the catalog is then downloaded and read once,
+ * and the resources of each system are available from {@link #getDownloadedResources(String)}.
  */
 public class ServiceCatalogDownloaderCallback implements DiscoveryCallback {
     private static final Logger LOG = LoggerFactory.getLogger(ServiceCatalogDownloaderCallback.class);
 
     private final DownloaderFactory downloaderFactory;
     private final String catalogName;
-    private final String systemName;
+    private final List<String> systemNames;
     private final DownloaderConfiguration configuration;
     private final CountDownLatch countDownLatch = new CountDownLatch(1);
-    private Map<ResourceType, Path> downloadedResources = new HashMap<>();
+    private Map<String, CatalogChanges> changes = Map.of();
     private boolean success;
 
     public ServiceCatalogDownloaderCallback(
@@ -38,14 +45,34 @@ public class ServiceCatalogDownloaderCallback implements DiscoveryCallback {
             String catalogName,
             String systemName,
             DownloaderConfiguration configuration) {
+        this(downloaderFactory, catalogName, List.of(systemName), configuration);
+    }
+
+    /**
+     * Creates a callback extracting the files of several systems from the same catalog.
+     *
+     * @param downloaderFactory the factory providing the HTTP client, data directory and resource cache
+     * @param catalogName       the name of the service catalog
+     * @param systemNames       the systems hosted by this runtime
+     * @param configuration     the retry configuration
+     */
+    public ServiceCatalogDownloaderCallback(
+            DownloaderFactory downloaderFactory,
+            String catalogName,
+            List<String> systemNames,
+            DownloaderConfiguration configuration) {
+        if (systemNames == null || systemNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one system name is required");
+        }
         this.downloaderFactory = downloaderFactory;
         this.catalogName = catalogName;
-        this.systemName = systemName;
+        this.systemNames = List.copyOf(systemNames);
         this.configuration = configuration;
     }
 
     @Override
     public void onRegistration(RegistrationManager manager, ServiceTarget target) {
+        StartupTimeline.global().mark(StartupTimeline.REGISTRATION);
         try {
             downloadServiceCatalogWithRetry();
         } finally {
@@ -63,30 +90,51 @@ public class ServiceCatalogDownloaderCallback implements DiscoveryCallback {
         for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
                 LOG.info(
-                        "Downloading service catalog '{}' for system '{}' (attempt {}/{})",
+                        "Downloading service catalog '{}' for system(s) {} (attempt {}/{})",
                         catalogName,
-                        systemName,
+                        systemNames,
                         attempt,
                         maxAttempts);
 
-                WanakuResponse<DataStore> response =
-                        downloaderFactory.getServicesHttpClient().getServiceCatalog(catalogName);
-                if (response == null || response.data() == null) {
-                    LOG.error("Service catalog '{}' not found", catalogName);
-                    return;
-                }
-
-                DataStore catalog = response.data();
-                if (catalog.getData() == null || catalog.getData().isBlank()) {
-                    LOG.error("Service catalog '{}' contains no data", catalogName);
-                    return;
+                Path dataDir = downloaderFactory.getDataDir();
+                ResourceCache cache = downloaderFactory.getResourceCache();
+                if (cache != null) {
+                    ResourceCache.Entry catalog;
+                    try (StartupTimeline.Phase ignored =
+                            StartupTimeline.global().begin(StartupTimeline.CATALOG_DOWNLOAD)) {
+                        catalog = downloadCached(cache);
+                    }
+                    if (catalog == null) {
+                        LOG.error("Service catalog '{}' not found or contains no data", catalogName);
+                        return;
+                    }
+
+                    changes = extractChanges(catalog.path(), dataDir);
+                } else {
+                    Files.createDirectories(dataDir);
+                    Path zipFile = Files.createTempFile(dataDir, "catalog-", ".zip");
+                    try {
+                        boolean downloaded;
+                        try (StartupTimeline.Phase ignored =
+                                StartupTimeline.global().begin(StartupTimeline.CATALOG_DOWNLOAD)) {
+                            downloaded = downloaderFactory
+                                    .getServicesHttpClient()
+                                    .downloadServiceCatalog(catalogName, zipFile);
+                        }
+                        if (!downloaded) {
+                            LOG.error("Service catalog '{}' not found or contains no data", catalogName);
+                            return;
+                        }
+
+                        changes = extractChanges(zipFile, dataDir);
+                    } finally {
+                        Files.deleteIfExists(zipFile);
+                    }
                 }
-
-                downloadedResources =
-                        ServiceCatalogExtractor.extract(catalog.getData(), systemName, downloaderFactory.getDataDir());
-                LOG.info(
-                        "Service catalog extracted successfully ({} resource type(s) mapped)",
-                        downloadedResources.size());
+                changes.forEach((system, systemChanges) -> LOG.info(
+                        "Service catalog extracted successfully for system '{}' ({} resource type(s) mapped)",
+                        system,
+                        systemChanges.resources().size()));
                 success = true;
                 return;
             } catch (Exception e) {
@@ -114,6 +162,40 @@ public class ServiceCatalogDownloaderCallback implements DiscoveryCallback {
         }
     }
 
+    private Map<String, CatalogChanges> extractChanges(Path zipFile, Path dataDir) {
+        try (StartupTimeline.Phase ignored = StartupTimeline.global().begin(StartupTimeline.CATALOG_EXTRACTION)) {
+            return ServiceCatalogExtractor.extractChanges(zipFile, systemNames, dataDir);
+        }
+    }
+
+    /**
+     * Downloads the catalog through the resource cache, revalidating the cached copy with its entity tag.
+     *
+     * @return the cached catalog, or {@code null} if the router has no content for it
+     */
+    private ResourceCache.Entry downloadCached(ResourceCache cache) throws IOException {
+        String key = "catalog:" + catalogName;
+        ResourceCache.Entry cached = cache.lookup(key);
+
+        Path tmp = cache.newTempFile();
+        try {
+            DataStoreDownload result = downloaderFactory
+                    .getServicesHttpClient()
+                    .downloadServiceCatalog(catalogName, tmp, cached != null ? cached.etag() : null);
+
+            return switch (result.status()) {
+                case NOT_MODIFIED -> {
+                    LOG.info("Service catalog '{}' is unchanged, using the cached copy", catalogName);
+                    yield cached;
+                }
+                case WRITTEN -> cache.store(key, tmp, result.etag());
+                case NO_DATA -> null;
+            };
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
     public boolean waitForDownloads() {
         LOG.info("Waiting for service catalog download");
         try {
@@ -126,6 +208,45 @@ public class ServiceCatalogDownloaderCallback implements DiscoveryCallback {
     }
 
     public Map<ResourceType, Path> getDownloadedResources() {
-        return downloadedResources;
+        return getDownloadedResources(systemNames.get(0));
+    }
+
+    /**
+     * Returns the extracted resources of one of the systems of this callback.
+     *
+     * @param systemName the system name
+     * @return the resources of the system, or an empty map if the catalog was not extracted
+     */
+    public Map<ResourceType, Path> getDownloadedResources(String systemName) {
+        CatalogChanges systemChanges = changes.get(systemName);
+        return systemChanges != null ? systemChanges.resources() : Map.of();
+    }
+
+    /**
+     * Returns which of the extracted files changed on disk, so that only the affected resources are reloaded.
+     *
+     * @return the changes made by the last extraction, or {@code null} if the catalog was not extracted
+     */
+    public CatalogChanges getChanges() {
+        return getChanges(systemNames.get(0));
+    }
+
+    /**
+     * Returns which of the extracted files of one of the systems of this callback changed on disk.
+     *
+     * @param systemName the system name
+     * @return the changes made by the last extraction, or {@code null} if the catalog was not extracted
+     */
+    public CatalogChanges getChanges(String systemName) {
+        return changes.get(systemName);
+    }
+
+    /**
+     * Returns the systems whose files are extracted from the catalog.
+     *
+     * @return the system names
+     */
+    public List<String> getSystemNames() {
+        return systemNames;
     }
 }
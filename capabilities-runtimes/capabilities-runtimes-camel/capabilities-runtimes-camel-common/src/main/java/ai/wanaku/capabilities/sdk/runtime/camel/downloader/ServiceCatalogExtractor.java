@@ -1,16 +1,28 @@
 package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
@@ -33,101 +45,346 @@ public final class ServiceCatalogExtractor {
     private static final String PROP_ROUTES_PREFIX = "catalog.routes.";
     private static final String PROP_DEPENDENCIES_PREFIX = "catalog.dependencies.";
     private static final String PROP_PROPERTIES_PREFIX = "catalog.properties.";
+    private static final String SERVICE_PROPERTIES = "service.properties";
+
+    /**
+     * The number of Base64 characters decoded at a time. It must be a multiple of 4.
+     */
+    private static final int DECODE_CHUNK = 64 * 1024;
+
+    private enum FileChange {
+        ADDED,
+        MODIFIED,
+        UNCHANGED
+    }
 
     private ServiceCatalogExtractor() {}
 
     /**
-     * Extracts all files from a Base64-encoded service catalog ZIP archive,
-     * then maps the known resource types for the given system.
+     * Extracts the files of the given system from a Base64-encoded service catalog ZIP archive.
+     * The archive is decoded in chunks into a temporary file, so that it can be read with random access.
      *
      * @param base64Data the Base64-encoded ZIP data
      * @param system     the system name to resolve resource references for
      * @param dataDir    the directory where extracted files will be written
      * @return a map of resource types to their extracted file paths
      * @throws WanakuException if the ZIP is invalid or required files are missing
+     * @see #extract(Path, String, Path)
      */
     public static Map<ResourceType, Path> extract(String base64Data, String system, Path dataDir)
             throws WanakuException {
-        byte[] zipBytes;
+        Path zipFile = null;
         try {
-            zipBytes = Base64.getDecoder().decode(base64Data);
-        } catch (IllegalArgumentException e) {
-            throw new WanakuException("Invalid Base64 data: " + e.getMessage(), e);
+            Files.createDirectories(dataDir);
+            zipFile = Files.createTempFile(dataDir, "catalog-", ".zip");
+            decode(base64Data, zipFile);
+
+            return extract(zipFile, system, dataDir);
+        } catch (IOException e) {
+            throw new WanakuException("Failed to spool catalog ZIP: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(zipFile);
         }
+    }
 
-        Properties props = readIndex(zipBytes);
-        extractAll(zipBytes, dataDir);
+    /**
+     * Extracts the files of several systems from a Base64-encoded service catalog ZIP archive, decoding it once.
+     *
+     * @param base64Data the Base64-encoded ZIP data
+     * @param systems    the system names to resolve resource references for
+     * @param dataDir    the directory where extracted files will be written
+     * @return a map of resource types to their extracted file paths for each system, in the order of the given
+     *         systems
+     * @throws WanakuException if the ZIP is invalid or required files are missing for any of the systems
+     * @see #extractChanges(Path, List, Path)
+     */
+    public static Map<String, Map<ResourceType, Path>> extract(String base64Data, List<String> systems, Path dataDir)
+            throws WanakuException {
+        Path zipFile = null;
+        try {
+            Files.createDirectories(dataDir);
+            zipFile = Files.createTempFile(dataDir, "catalog-", ".zip");
+            decode(base64Data, zipFile);
 
-        Map<ResourceType, Path> result = new HashMap<>();
+            Map<String, Map<ResourceType, Path>> result = new LinkedHashMap<>();
+            extractChanges(zipFile, systems, dataDir)
+                    .forEach((system, changes) -> result.put(system, changes.resources()));
+            return result;
+        } catch (IOException e) {
+            throw new WanakuException("Failed to spool catalog ZIP: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(zipFile);
+        }
+    }
 
+    /**
+     * Extracts the files of the given system from a service catalog ZIP archive.
+     * <p>
+     * The index is read first, and only the entries the system needs are extracted: the files it references,
+     * the conventional {@code service.properties} next to its routes and, when the routes are in a directory of
+     * their own, every other file under that directory. The files of the other systems in the catalog are left
+     * in the archive. Entries are written concurrently.
+     *
+     * @param zipFile the service catalog ZIP archive
+     * @param system  the system name to resolve resource references for
+     * @param dataDir the directory where extracted files will be written
+     * @return a map of resource types to their extracted file paths
+     * @throws WanakuException if the ZIP is invalid or required files are missing
+     * @see #extractChanges(Path, String, Path)
+     */
+    public static Map<ResourceType, Path> extract(Path zipFile, String system, Path dataDir) throws WanakuException {
+        return extractChanges(zipFile, system, dataDir).resources();
+    }
+
+    /**
+     * Extracts the files of the given system from a service catalog ZIP archive, as
+     * {@link #extract(Path, String, Path)} does, and reports which files changed.
+     * <p>
+     * Extraction is incremental: a file already in the data directory with the same size and CRC-32 as its
+     * ZIP entry is left untouched, and changed files are replaced atomically. Republishing a catalog with a
+     * single changed route therefore rewrites that file only, and watchers of the other files see no events.
+     *
+     * @param zipFile the service catalog ZIP archive
+     * @param system  the system name to resolve resource references for
+     * @param dataDir the directory where extracted files will be written
+     * @return the resources of the system and the files that changed
+     * @throws WanakuException if the ZIP is invalid or required files are missing
+     */
+    public static CatalogChanges extractChanges(Path zipFile, String system, Path dataDir) throws WanakuException {
+        return extractChanges(zipFile, List.of(system), dataDir).get(system);
+    }
+
+    /**
+     * Extracts the files of several systems from a service catalog ZIP archive, as
+     * {@link #extractChanges(Path, String, Path)} does for one, so that a single runtime can host all of them.
+     * <p>
+     * The archive and its index are read once, and the entries of all the systems are extracted together. A
+     * file shared by several systems is written once, and reported as changed to each of them.
+     *
+     * @param zipFile the service catalog ZIP archive
+     * @param systems the system names to resolve resource references for
+     * @param dataDir the directory where extracted files will be written
+     * @return the resources of each system and the files that changed, in the order of the given systems
+     * @throws WanakuException if the ZIP is invalid or required files are missing for any of the systems
+     */
+    public static Map<String, CatalogChanges> extractChanges(Path zipFile, List<String> systems, Path dataDir)
+            throws WanakuException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Properties props = readIndex(zip);
+
+            Map<String, List<ZipEntry>> entriesBySystem = new LinkedHashMap<>();
+            Map<String, ZipEntry> selected = new LinkedHashMap<>();
+            for (String system : systems) {
+                String routesEntry = requireProperty(props, PROP_ROUTES_PREFIX + system, system);
+                List<ZipEntry> entries = selectEntries(
+                        zip,
+                        routesEntry,
+                        optionalProperty(props, PROP_DEPENDENCIES_PREFIX + system),
+                        optionalProperty(props, PROP_PROPERTIES_PREFIX + system));
+                entriesBySystem.put(system, entries);
+                entries.forEach(entry -> selected.putIfAbsent(entry.getName(), entry));
+            }
+
+            Map<Path, FileChange> changes = extractSelected(zip, List.copyOf(selected.values()), dataDir);
+
+            Map<String, CatalogChanges> result = new LinkedHashMap<>();
+            entriesBySystem.forEach((system, entries) -> {
+                Map<Path, FileChange> systemChanges = new LinkedHashMap<>();
+                for (ZipEntry entry : entries) {
+                    Path file = dataDir.resolve(entry.getName());
+                    FileChange change = changes.get(file);
+                    if (change != null) {
+                        systemChanges.put(file, change);
+                    }
+                }
+                Set<String> names = new HashSet<>();
+                entries.forEach(entry -> names.add(entry.getName()));
+                result.put(system, changesFor(props, system, dataDir, names, systemChanges));
+            });
+            return result;
+        } catch (ZipException e) {
+            throw new WanakuException("Invalid catalog ZIP: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new WanakuException("Failed to read catalog ZIP: " + e.getMessage(), e);
+        }
+    }
+
+    private static CatalogChanges changesFor(
+            Properties props, String system, Path dataDir, Set<String> extracted, Map<Path, FileChange> changes) {
         String routesEntry = requireProperty(props, PROP_ROUTES_PREFIX + system, system);
+        String depsEntry = optionalProperty(props, PROP_DEPENDENCIES_PREFIX + system);
+        String propsEntry = optionalProperty(props, PROP_PROPERTIES_PREFIX + system);
+
+        Map<ResourceType, Path> result = new HashMap<>();
         result.put(ResourceType.ROUTES_REF, dataDir.resolve(routesEntry));
 
-        String depsEntry = props.getProperty(PROP_DEPENDENCIES_PREFIX + system);
-        if (depsEntry != null && !depsEntry.isBlank()) {
-            result.put(ResourceType.DEPENDENCY_REF, dataDir.resolve(depsEntry.trim()));
+        if (depsEntry != null) {
+            result.put(ResourceType.DEPENDENCY_REF, dataDir.resolve(depsEntry));
         }
 
-        String propsEntry = props.getProperty(PROP_PROPERTIES_PREFIX + system);
-        if (propsEntry != null && !propsEntry.isBlank()) {
-            result.put(ResourceType.PROPERTIES_REF, dataDir.resolve(propsEntry.trim()));
+        if (propsEntry != null) {
+            result.put(ResourceType.PROPERTIES_REF, dataDir.resolve(propsEntry));
         } else {
-            Path routesDir = dataDir.resolve(routesEntry).getParent();
-            if (routesDir != null) {
-                Path conventional = routesDir.resolve("service.properties");
-                if (Files.exists(conventional)) {
-                    result.put(ResourceType.PROPERTIES_REF, conventional);
-                }
+            String conventional = conventionalProperties(routesEntry);
+            if (extracted.contains(conventional)) {
+                result.put(ResourceType.PROPERTIES_REF, dataDir.resolve(conventional));
             }
         }
 
-        return result;
+        return new CatalogChanges(
+                result,
+                filesWith(changes, FileChange.ADDED),
+                filesWith(changes, FileChange.MODIFIED),
+                filesWith(changes, FileChange.UNCHANGED));
     }
 
-    private static Properties readIndex(byte[] zipBytes) throws WanakuException {
-        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (INDEX_FILE.equals(entry.getName())) {
-                    Properties props = new Properties();
-                    props.load(zis);
-                    return props;
-                }
-                zis.closeEntry();
+    private static void decode(String base64Data, Path target) throws IOException {
+        Base64.Decoder decoder = Base64.getDecoder();
+        try (OutputStream out = Files.newOutputStream(target)) {
+            for (int start = 0; start < base64Data.length(); start += DECODE_CHUNK) {
+                int end = Math.min(start + DECODE_CHUNK, base64Data.length());
+                out.write(decoder.decode(base64Data.substring(start, end)));
             }
-        } catch (IOException e) {
-            throw new WanakuException("Failed to read catalog ZIP: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new WanakuException("Invalid Base64 data: " + e.getMessage(), e);
         }
-        throw new WanakuException("Catalog ZIP does not contain " + INDEX_FILE);
     }
 
-    private static void extractAll(byte[] zipBytes, Path dataDir) throws WanakuException {
-        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (entry.isDirectory()) {
-                    zis.closeEntry();
-                    continue;
-                }
+    private static Properties readIndex(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(INDEX_FILE);
+        if (entry == null) {
+            throw new WanakuException("Catalog ZIP does not contain " + INDEX_FILE);
+        }
+
+        Properties props = new Properties();
+        try (InputStream is = zip.getInputStream(entry)) {
+            props.load(is);
+        }
+        return props;
+    }
+
+    private static List<ZipEntry> selectEntries(ZipFile zip, String... referenced) {
+        Set<String> names = new HashSet<>();
+        for (String name : referenced) {
+            if (name != null) {
+                names.add(name);
+            }
+        }
+
+        names.add(conventionalProperties(referenced[0]));
 
-                String name = entry.getName();
-                if (name.contains("..")) {
-                    zis.closeEntry();
+        // routes at the root of the archive share it with the other systems, so only their own files are taken
+        int slash = referenced[0].lastIndexOf('/');
+        String systemDir = slash >= 0 ? referenced[0].substring(0, slash + 1) : null;
+
+        return zip.stream()
+                .map(ZipEntry.class::cast)
+                .filter(entry -> !entry.isDirectory())
+                .filter(entry -> names.contains(entry.getName())
+                        || (systemDir != null && entry.getName().startsWith(systemDir)))
+                .toList();
+    }
+
+    /**
+     * Returns the name of the {@code service.properties} entry next to the given routes entry.
+     */
+    private static String conventionalProperties(String routesEntry) {
+        return routesEntry.substring(0, routesEntry.lastIndexOf('/') + 1) + SERVICE_PROPERTIES;
+    }
+
+    private static Map<Path, FileChange> extractSelected(ZipFile zip, List<ZipEntry> entries, Path dataDir)
+            throws IOException {
+        Path root = dataDir.toAbsolutePath().normalize();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<Path, Future<FileChange>> writes = new LinkedHashMap<>();
+            for (ZipEntry entry : entries) {
+                Path targetPath = root.resolve(entry.getName()).normalize();
+                if (!targetPath.startsWith(root)) {
+                    LOG.warn("Skipping catalog entry '{}' outside of the data directory", entry.getName());
                     continue;
                 }
 
-                Path targetPath = dataDir.resolve(name);
-                Files.createDirectories(targetPath.getParent());
+                writes.put(
+                        dataDir.resolve(entry.getName()), executor.submit(() -> extractEntry(zip, entry, targetPath)));
+            }
 
-                try (OutputStream out = Files.newOutputStream(targetPath)) {
-                    zis.transferTo(out);
-                }
+            Map<Path, FileChange> changes = new LinkedHashMap<>();
+            for (Map.Entry<Path, Future<FileChange>> write : writes.entrySet()) {
+                changes.put(write.getKey(), write.getValue().get());
+            }
+            return changes;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new WanakuException(
+                    "Failed to extract catalog files: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WanakuException("Interrupted while extracting catalog files", e);
+        }
+    }
 
-                LOG.info("Extracted catalog file '{}' to {}", name, targetPath);
-                zis.closeEntry();
+    private static FileChange extractEntry(ZipFile zip, ZipEntry entry, Path targetPath) throws IOException {
+        boolean exists = Files.isRegularFile(targetPath);
+        if (exists && isUpToDate(entry, targetPath)) {
+            LOG.debug("Catalog file '{}' is unchanged", entry.getName());
+            return FileChange.UNCHANGED;
+        }
+
+        Files.createDirectories(targetPath.getParent());
+        Path tmp = Files.createTempFile(targetPath.getParent(), "." + targetPath.getFileName(), ".tmp");
+        try {
+            try (InputStream in = zip.getInputStream(entry);
+                    OutputStream out = Files.newOutputStream(tmp)) {
+                in.transferTo(out);
             }
+            Files.move(tmp, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        LOG.info("Extracted catalog file '{}' to {}", entry.getName(), targetPath);
+        return exists ? FileChange.MODIFIED : FileChange.ADDED;
+    }
+
+    private static boolean isUpToDate(ZipEntry entry, Path file) throws IOException {
+        if (entry.getSize() < 0 || entry.getCrc() < 0 || Files.size(file) != entry.getSize()) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(Files.newInputStream(file), crc)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
+    private static Set<Path> filesWith(Map<Path, FileChange> changes, FileChange change) {
+        Set<Path> files = new HashSet<>();
+        changes.forEach((file, c) -> {
+            if (c == change) {
+                files.add(file);
+            }
+        });
+        return files;
+    }
+
+    private static String optionalProperty(Properties props, String key) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
         } catch (IOException e) {
-            throw new WanakuException("Failed to extract catalog files: " + e.getMessage(), e);
+            LOG.debug("Unable to delete temporary catalog file {}: {}", file, e.getMessage());
         }
     }
 
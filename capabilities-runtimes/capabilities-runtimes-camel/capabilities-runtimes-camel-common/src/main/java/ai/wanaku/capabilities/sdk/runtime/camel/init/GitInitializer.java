@@ -2,55 +2,286 @@ package ai.wanaku.capabilities.sdk.runtime.camel.init;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.transport.URIish;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
 
 /**
  * Initializer that clones a Git repository during application startup.
- * The repository is cloned to {dataDir}/cloned-repo and reused if it already exists.
+ * The repository is cloned to {dataDir}/cloned-repo, and on later starts the existing clone is brought up to date
+ * by fetching the configured ref and checking it out, instead of cloning it again.
+ * <p>
+ * Only the configured ref (a branch, a tag or a full ref name, the remote {@code HEAD} by default) is fetched,
+ * optionally limited to the given number of commits. When paths are configured, only those paths are checked
+ * out in the working tree. If the existing clone cannot be updated, for instance because the remote is not
+ * reachable, it is used as is. A clone that fails is removed, so the next start clones the repository again.
  */
 public class GitInitializer implements Initializer {
     private static final Logger LOG = LoggerFactory.getLogger(GitInitializer.class);
     private static final String CLONED_REPO_DIR_NAME = "cloned-repo";
+    private static final String REMOTE = Constants.DEFAULT_REMOTE_NAME;
 
     private final String gitRepoUrl;
     private final Path dataDir;
+    private final int depth;
+    private final String ref;
+    private final List<String> paths;
     private Path clonedRepoPath;
 
     public GitInitializer(String gitRepoUrl, Path dataDir) {
-        this.gitRepoUrl = gitRepoUrl;
-        this.dataDir = dataDir;
+        this(newBuilder().repository(gitRepoUrl).dataDir(dataDir));
+    }
+
+    private GitInitializer(Builder builder) {
+        this.gitRepoUrl = builder.gitRepoUrl;
+        this.dataDir = builder.dataDir;
+        this.depth = builder.depth;
+        this.ref = builder.ref;
+        this.paths = builder.paths;
     }
 
     @Override
     public void initialize() throws GitAPIException, IOException {
+        try (StartupTimeline.Phase ignored = StartupTimeline.global().begin(StartupTimeline.GIT_INIT)) {
+            cloneOrUpdate();
+        }
+    }
+
+    private void cloneOrUpdate() throws GitAPIException, IOException {
         clonedRepoPath = dataDir.resolve(CLONED_REPO_DIR_NAME);
         File clonedRepoDir = clonedRepoPath.toFile();
 
         if (clonedRepoDir.exists()) {
-            try (Git ignored = Git.open(clonedRepoDir)) {
-                LOG.info("Reusing existing cloned repository at {}", clonedRepoPath);
-                return;
+            try (Git git = Git.open(clonedRepoDir)) {
+                if (git.getRepository().resolve(Constants.HEAD + "^{commit}") != null) {
+                    LOG.info("Updating existing cloned repository at {}", clonedRepoPath);
+                    try {
+                        update(git);
+                    } catch (GitAPIException | IOException e) {
+                        LOG.warn(
+                                "Unable to update the cloned repository at {}, using it as is: {}",
+                                clonedRepoPath,
+                                e.getMessage());
+                    }
+                    return;
+                }
             } catch (IOException e) {
                 throw new IOException(
                         "Existing cloned repository at " + clonedRepoPath + " is not a valid Git repository", e);
             }
+
+            LOG.warn("Existing cloned repository at {} has no commit checked out, cloning it again", clonedRepoPath);
+            deleteRecursively(clonedRepoPath);
         }
 
         LOG.info("Cloning git repository from {} to {}", gitRepoUrl, clonedRepoPath);
 
-        try (Git ignored = Git.cloneRepository()
-                .setURI(gitRepoUrl)
-                .setDirectory(clonedRepoDir)
-                .call()) {
+        boolean cloned = false;
+        try (Git git = Git.init().setDirectory(clonedRepoDir).call()) {
+            git.remoteAdd().setName(REMOTE).setUri(new URIish(gitRepoUrl)).call();
+            update(git);
+            cloned = true;
             LOG.info("Successfully cloned repository from {}", gitRepoUrl);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid Git repository URL: " + gitRepoUrl, e);
+        } finally {
+            if (!cloned) {
+                discardClone();
+            }
+        }
+    }
+
+    /**
+     * Removes a partial clone, so that the next start clones the repository again instead of using an empty one.
+     */
+    private void discardClone() {
+        try {
+            deleteRecursively(clonedRepoPath);
+        } catch (IOException e) {
+            LOG.warn("Unable to remove the partial clone at {}: {}", clonedRepoPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches the configured ref and checks it out, replacing the content of the working tree.
+     */
+    private void update(Git git) throws GitAPIException, IOException {
+        long start = System.nanoTime();
+        String source = remoteRef(git);
+        String tracking = trackingRef(source);
+
+        FetchCommand fetch = git.fetch()
+                .setRemote(REMOTE)
+                .setRefSpecs(new RefSpec("+" + source + ":" + tracking))
+                .setTagOpt(TagOpt.NO_TAGS);
+        if (depth > 0) {
+            fetch.setDepth(depth);
+        }
+        fetch.call();
+
+        ObjectId commit = git.getRepository().resolve(tracking + "^{commit}");
+        if (commit == null) {
+            throw new IOException("Unable to resolve " + source + " fetched from " + gitRepoUrl);
+        }
+        long fetched = System.nanoTime();
+        LOG.info(
+                "Fetched {} ({}) from {} in {} ms{}",
+                source,
+                commit.abbreviate(7).name(),
+                gitRepoUrl,
+                (fetched - start) / 1_000_000,
+                depth > 0 ? " with depth " + depth : "");
+
+        if (paths.isEmpty()) {
+            git.checkout().setName(commit.name()).setForced(true).call();
+        } else {
+            detachHead(git, commit);
+            for (String path : paths) {
+                deleteRecursively(clonedRepoPath.resolve(path));
+            }
+            git.checkout().setStartPoint(commit.name()).addPaths(paths).call();
+        }
+        LOG.info(
+                "Checked out {}{} in {} ms",
+                commit.abbreviate(7).name(),
+                paths.isEmpty() ? "" : " " + paths,
+                (System.nanoTime() - fetched) / 1_000_000);
+    }
+
+    /**
+     * Returns the full name of the remote ref to fetch.
+     */
+    private String remoteRef(Git git) throws GitAPIException, IOException {
+        if (ref == null) {
+            return Constants.HEAD;
+        }
+        if (ref.startsWith(Constants.R_REFS)) {
+            return ref;
+        }
+
+        Collection<Ref> advertised = git.lsRemote().setRemote(REMOTE).call();
+        for (String candidate : List.of(Constants.R_HEADS + ref, Constants.R_TAGS + ref)) {
+            if (advertised.stream().anyMatch(r -> r.getName().equals(candidate))) {
+                return candidate;
+            }
+        }
+        throw new IOException("No branch or tag named " + ref + " in " + gitRepoUrl);
+    }
+
+    private static String trackingRef(String source) {
+        if (source.startsWith(Constants.R_HEADS)) {
+            return Constants.R_REMOTES + REMOTE + "/" + source.substring(Constants.R_HEADS.length());
+        }
+        if (source.startsWith(Constants.R_TAGS)) {
+            return source;
+        }
+        return Constants.R_REMOTES + REMOTE + "/" + source;
+    }
+
+    private static void detachHead(Git git, ObjectId commit) throws IOException {
+        RefUpdate update = git.getRepository().updateRef(Constants.HEAD, true);
+        update.setNewObjectId(commit);
+        RefUpdate.Result result = update.forceUpdate();
+        if (result == RefUpdate.Result.LOCK_FAILURE
+                || result == RefUpdate.Result.IO_FAILURE
+                || result == RefUpdate.Result.REJECTED) {
+            throw new IOException("Unable to update HEAD to " + commit.name() + ": " + result);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
         }
     }
 
     public Path getClonedRepoPath() {
         return clonedRepoPath;
     }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private String gitRepoUrl;
+        private Path dataDir;
+        private int depth;
+        private String ref;
+        private List<String> paths = List.of();
+
+        private Builder() {}
+
+        public Builder repository(String gitRepoUrl) {
+            this.gitRepoUrl = gitRepoUrl;
+            return this;
+        }
+
+        public Builder dataDir(Path dataDir) {
+            this.dataDir = dataDir;
+            return this;
+        }
+
+        /**
+         * Sets the number of commits to fetch, or {@code 0} to fetch the full history.
+         */
+        public Builder depth(int depth) {
+            if (depth < 0) {
+                throw new IllegalArgumentException("depth must not be negative");
+            }
+            this.depth = depth;
+            return this;
+        }
+
+        /**
+         * Sets the branch, tag or full ref name to check out, or {@code null} for the remote {@code HEAD}.
+         */
+        public Builder ref(String ref) {
+            this.ref = ref == null || ref.isBlank() ? null : ref.trim();
+            return this;
+        }
+
+        /**
+         * Sets the paths, relative to the repository root, to check out, or an empty list for all of them.
+         */
+        public Builder paths(List<String> paths) {
+            List<String> normalized = new ArrayList<>();
+            for (String path : paths == null ? List.<String>of() : paths) {
+                Path p = Path.of(path.trim()).normalize();
+                if (p.isAbsolute() || p.startsWith("..") || p.toString().isEmpty()) {
+                    throw new IllegalArgumentException("Invalid path to check out: " + path);
+                }
+                normalized.add(p.toString().replace(File.separatorChar, '/'));
+            }
+            this.paths = List.copyOf(normalized);
+            return this;
+        }
+
+        public GitInitializer build() {
+            return new GitInitializer(this);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package ai.wanaku.capabilities.sdk.runtime.camel.init;
 
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Factory for creating initializers based on the initFrom parameter.
@@ -25,4 +26,31 @@ public final class InitializerFactory {
         // Examples: git@github.com:user/repo.git or https://github.com/user/repo.git
         return new GitInitializer(normalizedInitFrom, dataDir);
     }
+
+    /**
+     * Creates an appropriate initializer based on the initFrom parameter, limiting what is fetched and checked
+     * out from the Git repository.
+     *
+     * @param initFrom Git repository URL (SSH or HTTPS), or null for no initialization
+     * @param dataDir  Directory where the repository will be cloned
+     * @param depth    Number of commits to fetch, or 0 for the full history
+     * @param ref      Branch, tag or full ref name to check out, or null for the remote HEAD
+     * @param paths    Paths to check out, or an empty list for the whole repository
+     * @return GitInitializer if initFrom is provided, NoOpInitializer otherwise
+     */
+    public static Initializer createInitializer(
+            String initFrom, Path dataDir, int depth, String ref, List<String> paths) {
+        final String normalizedInitFrom = initFrom == null ? null : initFrom.trim();
+        if (normalizedInitFrom == null || normalizedInitFrom.isEmpty()) {
+            return new NoOpInitializer();
+        }
+
+        return GitInitializer.newBuilder()
+                .repository(normalizedInitFrom)
+                .dataDir(dataDir)
+                .depth(depth)
+                .ref(ref)
+                .paths(paths)
+                .build();
+    }
 }
@@ -0,0 +1,434 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.init;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.ResourceType;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
+
+/**
+ * A single archive holding what a capability fetches from the network when it starts, so that later starts can
+ * boot from it without waiting for the router, the data store or the Maven repositories.
+ * <p>
+ * A snapshot holds the resource files of the capability (its routes, properties and dependency list, along
+ * with the other files next to the routes, as extracted from a service catalog), the resolved dependency jars
+ * in classpath order, and its registration metadata. It is exported once the capability started, and restored
+ * on the next start with {@link #restore(Path, Path)}. Resource files are restored to the same paths in the
+ * data directory, so when the runtime then registers and downloads its resources in the background, files that
+ * did not change are left as they are and only actual changes are reloaded.
+ * <p>
+ * Every file is recorded with its SHA-256. A snapshot whose content does not match is rejected as a whole,
+ * before anything is written to the data directory.
+ */
+public final class StartupSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupSnapshot.class);
+
+    private static final String MANIFEST = "snapshot.properties";
+    private static final String FILES_DIR = "files/";
+    private static final String LIB_DIR = "lib/";
+    private static final String RESTORED_LIB_DIR = "snapshot-lib";
+    private static final int VERSION = 1;
+
+    private final Path dataDir;
+    private final Instant createdAt;
+    private final Map<ResourceType, Path> resources;
+    private final List<Path> dependencies;
+    private final Map<String, String> registration;
+
+    private StartupSnapshot(
+            Path dataDir,
+            Instant createdAt,
+            Map<ResourceType, Path> resources,
+            List<Path> dependencies,
+            Map<String, String> registration) {
+        this.dataDir = dataDir;
+        this.createdAt = createdAt;
+        this.resources = resources;
+        this.dependencies = dependencies;
+        this.registration = registration;
+    }
+
+    private StartupSnapshot(Builder builder) {
+        this(
+                builder.dataDir,
+                Instant.now(),
+                Map.copyOf(builder.resources),
+                List.copyOf(builder.dependencies),
+                Map.copyOf(builder.registration));
+    }
+
+    /**
+     * Returns when the snapshot was taken.
+     *
+     * @return the creation instant
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the resource files of the capability, by type.
+     *
+     * @return the resource files
+     */
+    public Map<ResourceType, Path> getResources() {
+        return resources;
+    }
+
+    /**
+     * Returns the resolved dependency jars, in classpath order.
+     *
+     * @return the dependency jars
+     */
+    public List<Path> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns the registration metadata of the capability, such as its service name and announce address.
+     *
+     * @return the registration metadata
+     */
+    public Map<String, String> getRegistration() {
+        return registration;
+    }
+
+    /**
+     * Writes the snapshot to the given archive, replacing it atomically.
+     *
+     * @param archive the archive to write
+     * @throws IOException if a file of the snapshot cannot be read or the archive cannot be written
+     */
+    public void export(Path archive) throws IOException {
+        Path root = dataDir.toAbsolutePath().normalize();
+        Properties manifest = new Properties();
+        manifest.setProperty("version", Integer.toString(VERSION));
+        manifest.setProperty("createdAt", createdAt.toString());
+        registration.forEach((key, value) -> manifest.setProperty("registration." + key, value));
+
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (Path file : resourceFiles(root)) {
+            files.put(root.relativize(file).toString().replace('\\', '/'), file);
+        }
+        resources.forEach((type, path) -> manifest.setProperty(
+                "resource." + type.name(),
+                root.relativize(path.toAbsolutePath().normalize()).toString().replace('\\', '/')));
+
+        Path dir = archive.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "." + archive.getFileName(), ".tmp");
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(tmp))) {
+                int index = 0;
+                for (Map.Entry<String, Path> file : files.entrySet()) {
+                    String prefix = "file." + index++ + ".";
+                    manifest.setProperty(prefix + "name", file.getKey());
+                    manifest.setProperty(prefix + "sha256", write(zip, FILES_DIR + file.getKey(), file.getValue()));
+                }
+                manifest.setProperty("files", Integer.toString(files.size()));
+
+                for (int i = 0; i < dependencies.size(); i++) {
+                    String name =
+                            String.format("%03d-%s", i, dependencies.get(i).getFileName());
+                    String prefix = "dependency." + i + ".";
+                    manifest.setProperty(prefix + "name", name);
+                    manifest.setProperty(prefix + "sha256", write(zip, LIB_DIR + name, dependencies.get(i)));
+                }
+                manifest.setProperty("dependencies", Integer.toString(dependencies.size()));
+
+                zip.putNextEntry(new ZipEntry(MANIFEST));
+                manifest.store(zip, "Wanaku startup snapshot");
+                zip.closeEntry();
+            }
+            Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        LOG.info(
+                "Exported startup snapshot with {} file(s) and {} dependencies to {}",
+                files.size(),
+                dependencies.size(),
+                archive);
+    }
+
+    /**
+     * Returns the resource files along with the other files in the directory of the routes, which the routes
+     * may refer to. Files outside the data directory cannot be restored, and are rejected.
+     */
+    private Set<Path> resourceFiles(Path root) throws IOException {
+        Set<Path> files = new LinkedHashSet<>();
+        for (Path resource : resources.values()) {
+            Path file = resource.toAbsolutePath().normalize();
+            if (!file.startsWith(root) || file.equals(root)) {
+                throw new WanakuException("Resource " + resource + " is not in the data directory " + dataDir);
+            }
+            files.add(file);
+        }
+
+        Path routes = resources.get(ResourceType.ROUTES_REF);
+        Path routesDir =
+                routes == null ? null : routes.toAbsolutePath().normalize().getParent();
+        if (routesDir != null && !routesDir.equals(root)) {
+            try (Stream<Path> siblings = Files.list(routesDir)) {
+                siblings.filter(Files::isRegularFile).sorted().forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    private static String write(ZipOutputStream zip, String name, Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        zip.putNextEntry(new ZipEntry(name));
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(zip);
+        }
+        zip.closeEntry();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Restores a snapshot into the given data directory. Resource files are written to the paths they were
+     * exported from, and dependency jars to the {@code snapshot-lib} directory in it. Files that are already
+     * up to date are left untouched.
+     *
+     * @param archive the archive written by {@link #export(Path)}
+     * @param dataDir the data directory to restore the snapshot into
+     * @return the restored snapshot, whose paths point into the data directory
+     * @throws WanakuException if the archive is not a valid snapshot or its content does not match
+     * @throws IOException     if the archive cannot be read or the files cannot be written
+     */
+    public static StartupSnapshot restore(Path archive, Path dataDir) throws IOException {
+        try (StartupTimeline.Phase ignored = StartupTimeline.global().begin(StartupTimeline.SNAPSHOT_RESTORE);
+                ZipFile zip = new ZipFile(archive.toFile())) {
+            Path root = dataDir.toAbsolutePath().normalize();
+            Properties manifest = readManifest(zip);
+
+            Map<Path, Path> staged = new LinkedHashMap<>();
+            try {
+                int files = Integer.parseInt(manifest.getProperty("files", "0"));
+                for (int i = 0; i < files; i++) {
+                    String name = required(manifest, "file." + i + ".name");
+                    stage(
+                            zip,
+                            FILES_DIR + name,
+                            required(manifest, "file." + i + ".sha256"),
+                            target(root, name),
+                            staged);
+                }
+
+                List<Path> dependencies = new ArrayList<>();
+                int count = Integer.parseInt(manifest.getProperty("dependencies", "0"));
+                for (int i = 0; i < count; i++) {
+                    String name = required(manifest, "dependency." + i + ".name");
+                    Path target = target(root, RESTORED_LIB_DIR + "/" + name);
+                    stage(zip, LIB_DIR + name, required(manifest, "dependency." + i + ".sha256"), target, staged);
+                    dependencies.add(target);
+                }
+
+                for (Map.Entry<Path, Path> file : staged.entrySet()) {
+                    Files.move(
+                            file.getValue(),
+                            file.getKey(),
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+
+                Map<ResourceType, Path> resources = new EnumMap<>(ResourceType.class);
+                Map<String, String> registration = new LinkedHashMap<>();
+                for (String key : manifest.stringPropertyNames()) {
+                    if (key.startsWith("resource.")) {
+                        resources.put(
+                                ResourceType.valueOf(key.substring("resource.".length())),
+                                target(root, manifest.getProperty(key)));
+                    } else if (key.startsWith("registration.")) {
+                        registration.put(key.substring("registration.".length()), manifest.getProperty(key));
+                    }
+                }
+
+                LOG.info(
+                        "Restored startup snapshot from {} ({} file(s) updated, {} dependencies)",
+                        archive,
+                        staged.size(),
+                        dependencies.size());
+                return new StartupSnapshot(
+                        dataDir,
+                        Instant.parse(required(manifest, "createdAt")),
+                        Map.copyOf(resources),
+                        List.copyOf(dependencies),
+                        Map.copyOf(registration));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new WanakuException("Invalid startup snapshot " + archive + ": " + e.getMessage(), e);
+            } finally {
+                for (Path tmp : staged.values()) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        } catch (ZipException e) {
+            throw new WanakuException("Invalid startup snapshot " + archive + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Properties readManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST);
+        if (entry == null) {
+            throw new WanakuException("Startup snapshot does not contain " + MANIFEST);
+        }
+
+        Properties manifest = new Properties();
+        try (InputStream is = zip.getInputStream(entry)) {
+            manifest.load(is);
+        }
+
+        String version = manifest.getProperty("version");
+        if (!Integer.toString(VERSION).equals(version)) {
+            throw new WanakuException("Unsupported startup snapshot version: " + version);
+        }
+        return manifest;
+    }
+
+    private static String required(Properties manifest, String key) {
+        String value = manifest.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new WanakuException("Startup snapshot manifest is missing " + key);
+        }
+        return value;
+    }
+
+    private static Path target(Path root, String name) {
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new WanakuException("Snapshot entry '" + name + "' is outside of the data directory");
+        }
+        return target;
+    }
+
+    /**
+     * Extracts an entry next to its target and verifies its checksum. Entries whose target already has the
+     * same content are not staged.
+     */
+    private static void stage(ZipFile zip, String name, String sha256, Path target, Map<Path, Path> staged)
+            throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            throw new WanakuException("Startup snapshot is missing " + name);
+        }
+
+        if (Files.isRegularFile(target) && sha256.equals(sha256(target))) {
+            LOG.debug("Snapshot file '{}' is unchanged", name);
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        staged.put(target, tmp);
+
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(zip.getInputStream(entry), digest);
+                OutputStream out = Files.newOutputStream(tmp)) {
+            in.transferTo(out);
+        }
+        if (!sha256.equals(HexFormat.of().formatHex(digest.digest()))) {
+            throw new WanakuException("Startup snapshot entry " + name + " is corrupted");
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new WanakuException("SHA-256 is not available", e);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private Path dataDir;
+        private final Map<ResourceType, Path> resources = new EnumMap<>(ResourceType.class);
+        private List<Path> dependencies = List.of();
+        private final Map<String, String> registration = new LinkedHashMap<>();
+
+        private Builder() {}
+
+        /**
+         * Sets the data directory the resource files are in, and restored to.
+         */
+        public Builder dataDir(Path dataDir) {
+            this.dataDir = dataDir;
+            return this;
+        }
+
+        /**
+         * Adds the resource files, such as those of a service catalog or a resource download callback.
+         */
+        public Builder resources(Map<ResourceType, Path> resources) {
+            resources.forEach((type, path) -> {
+                if (path != null) {
+                    this.resources.put(type, path);
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets the resolved dependency jars, in classpath order.
+         */
+        public Builder dependencies(List<Path> dependencies) {
+            this.dependencies = dependencies == null ? List.of() : dependencies;
+            return this;
+        }
+
+        /**
+         * Adds an entry of registration metadata, such as the service name or the announce address.
+         */
+        public Builder registration(String key, String value) {
+            if (value != null) {
+                this.registration.put(key, value);
+            }
+            return this;
+        }
+
+        public StartupSnapshot build() {
+            if (dataDir == null) {
+                throw new IllegalArgumentException("dataDir is required");
+            }
+            return new StartupSnapshot(this);
+        }
+    }
+}
@@ -2,13 +2,13 @@ package ai.wanaku.capabilities.sdk.runtime.camel.util;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.nio.file.StandardWatchEventKinds;
-import java.nio.file.WatchEvent;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,63 +17,44 @@ public final class FileUtil {
 
     private FileUtil() {}
 
+    /**
+     * Blocks until the given file exists.
+     *
+     * @param input       the file or directory to wait for
+     * @param isDirectory whether {@code input} is a directory; kept for compatibility, as files and directories
+     *                    are waited for in the same way
+     * @return {@code true} once the file exists
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @see FileWatcher
+     */
     public static boolean untilAvailable(File input, boolean isDirectory) throws IOException, InterruptedException {
-        WatchService watchService = FileSystems.getDefault().newWatchService();
-        Path path = isDirectory ? input.toPath() : input.getParentFile().toPath();
+        return untilAvailable(List.of(input.toPath()), null);
+    }
 
-        if (input.exists()) {
-            LOG.info("File {} already available", input);
+    /**
+     * Blocks until all the given files exist, or the timeout elapses.
+     *
+     * @param files   the files to wait for
+     * @param timeout how long to wait, or {@code null} to wait indefinitely
+     * @return {@code true} if all the files exist, {@code false} if the timeout elapsed first
+     * @throws IOException          if the files cannot be watched
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public static boolean untilAvailable(Collection<Path> files, Duration timeout)
+            throws IOException, InterruptedException {
+        CompletableFuture<Void> available = FileWatcher.shared().whenAvailable(files, timeout);
+        try {
+            available.get();
             return true;
-        }
-
-        // We watch for both the file creation and truncation
-        path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
-
-        do {
-            LOG.info("Waiting indefinitely for {} to be available", input);
-
-            WatchKey watchKey = watchService.poll(1, TimeUnit.SECONDS);
-
-            if (watchKey == null) {
-                continue;
-            }
-
-            for (WatchEvent<?> event : watchKey.pollEvents()) {
-
-                /*
-                 It should return a Path object for ENTRY_CREATE and ENTRY_MODIFY events
-                */
-                Object context = event.context();
-                if (!(context instanceof Path contextPath)) {
-                    LOG.warn("Received an unexpected event of kind {} for context {}", event.kind(), event.context());
-                    continue;
-                }
-
-                if (contextPath.toString().equals(input.getName())) {
-                    LOG.debug(
-                            "File at the path {} had a matching event of type: {}",
-                            input.getParentFile().getPath(),
-                            event.kind());
-
-                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
-                            || event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
-                        LOG.info(
-                                "File at the path {} was created or modified",
-                                input.getParentFile().getPath());
-
-                        break;
-                    }
-                } else {
-                    LOG.debug(
-                            "Ignoring a watch event at build path {} of type {} for file: {}",
-                            input.getParentFile().getPath(),
-                            event.kind(),
-                            contextPath.getFileName());
-                }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                LOG.warn("Timed out after {} waiting for {}", timeout, files);
+                return false;
             }
-            watchKey.reset();
-        } while (!input.exists());
-
-        return input.exists();
+            throw new IOException("Unable to wait for " + files, e.getCause());
+        } catch (InterruptedException e) {
+            available.cancel(false);
+            throw e;
+        }
     }
 }
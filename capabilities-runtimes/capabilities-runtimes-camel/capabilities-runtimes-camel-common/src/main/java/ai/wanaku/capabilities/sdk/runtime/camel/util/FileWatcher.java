@@ -0,0 +1,250 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.util;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+
+/**
+ * Waits for files to become available, reacting to file system events instead of polling.
+ * <p>
+ * All waits share a single {@link WatchService}, served by one daemon thread, and each directory is registered
+ * once no matter how many waits involve it. For a file whose parent directory does not exist yet, its nearest
+ * existing ancestor is watched instead. Registrations are cancelled as soon as no wait needs them, and the
+ * watch service is closed when there is nothing left to wait for, so waits do not leak file descriptors.
+ */
+public final class FileWatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(FileWatcher.class);
+    private static final FileWatcher SHARED = new FileWatcher();
+
+    private final Map<Path, Registration> registrations = new HashMap<>();
+    private final List<Wait> waits = new ArrayList<>();
+    private WatchService watchService;
+
+    FileWatcher() {}
+
+    /**
+     * Returns the watcher shared by all callers in this process.
+     *
+     * @return the shared file watcher
+     */
+    public static FileWatcher shared() {
+        return SHARED;
+    }
+
+    private static final class Registration {
+        private final WatchKey key;
+        private int waits;
+
+        private Registration(WatchKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Wait {
+        private final Set<Path> files;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private Set<Path> watched = Set.of();
+
+        private Wait(Set<Path> files) {
+            this.files = files;
+        }
+    }
+
+    /**
+     * Returns a future that completes as soon as all the given files exist.
+     *
+     * @param files   the files to wait for
+     * @param timeout how long to wait, or {@code null} to wait indefinitely
+     * @return a future completing when all the files exist, or exceptionally with a
+     *         {@link java.util.concurrent.TimeoutException} once the timeout elapses
+     */
+    public CompletableFuture<Void> whenAvailable(Collection<Path> files, Duration timeout) {
+        Set<Path> normalized = new HashSet<>();
+        for (Path file : files) {
+            normalized.add(file.toAbsolutePath().normalize());
+        }
+
+        Wait wait = new Wait(normalized);
+        boolean available;
+        synchronized (this) {
+            available = update(wait);
+            if (available) {
+                release(wait);
+            } else {
+                waits.add(wait);
+                LOG.info("Waiting for {} to be available", normalized);
+            }
+        }
+
+        if (available) {
+            wait.future.complete(null);
+            return wait.future;
+        }
+
+        wait.future.whenComplete((v, e) -> remove(wait));
+        if (timeout != null) {
+            wait.future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return wait.future;
+    }
+
+    /**
+     * Returns the number of directories currently registered with the watch service.
+     *
+     * @return the number of watched directories
+     */
+    synchronized int watchedDirectories() {
+        return registrations.size();
+    }
+
+    /**
+     * Registers the directories the wait needs and returns whether all its files are available.
+     */
+    private boolean update(Wait wait) {
+        Set<Path> dirs = new HashSet<>();
+        for (Path file : wait.files) {
+            if (!Files.exists(file)) {
+                dirs.add(nearestExistingParent(file));
+            }
+        }
+
+        for (Path dir : dirs) {
+            if (!wait.watched.contains(dir)) {
+                register(dir);
+            }
+        }
+        for (Path dir : wait.watched) {
+            if (!dirs.contains(dir)) {
+                unregister(dir);
+            }
+        }
+        wait.watched = dirs;
+
+        // files created before the registration above took effect did not produce an event
+        return wait.files.stream().allMatch(Files::exists);
+    }
+
+    private void register(Path dir) {
+        Registration registration = registrations.get(dir);
+        if (registration == null) {
+            try {
+                WatchKey key = dir.register(
+                        watchService(), StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                registration = new Registration(key);
+                registrations.put(dir, registration);
+                LOG.debug("Watching {}", dir);
+            } catch (IOException e) {
+                throw new WanakuException("Unable to watch " + dir, e);
+            }
+        }
+        registration.waits++;
+    }
+
+    private void unregister(Path dir) {
+        Registration registration = registrations.get(dir);
+        if (registration != null && --registration.waits == 0) {
+            registration.key.cancel();
+            registrations.remove(dir);
+            LOG.debug("No longer watching {}", dir);
+        }
+    }
+
+    private synchronized void remove(Wait wait) {
+        if (waits.remove(wait)) {
+            release(wait);
+        }
+    }
+
+    private void release(Wait wait) {
+        for (Path dir : wait.watched) {
+            unregister(dir);
+        }
+        wait.watched = Set.of();
+
+        if (waits.isEmpty() && watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.debug("Unable to close the watch service: {}", e.getMessage());
+            }
+            watchService = null;
+        }
+    }
+
+    private WatchService watchService() throws IOException {
+        if (watchService == null) {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            Thread.ofPlatform().name("wanaku-file-watcher").daemon().start(() -> run(service));
+            watchService = service;
+        }
+        return watchService;
+    }
+
+    private void run(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                key.pollEvents();
+                key.reset();
+
+                List<Wait> completed = new ArrayList<>();
+                synchronized (this) {
+                    for (Wait wait : waits) {
+                        if (update(wait)) {
+                            completed.add(wait);
+                        }
+                    }
+                    for (Wait wait : completed) {
+                        waits.remove(wait);
+                        release(wait);
+                    }
+                }
+
+                for (Wait wait : completed) {
+                    LOG.info("Files {} are available", wait.files);
+                    wait.future.complete(null);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOG.debug("File watcher stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOG.warn("File watcher failed: {}", e.getMessage(), e);
+            List<Wait> failed;
+            synchronized (this) {
+                failed = List.copyOf(waits);
+            }
+            failed.forEach(wait -> wait.future.completeExceptionally(e));
+        }
+    }
+
+    private static Path nearestExistingParent(Path file) {
+        Path dir = file.getParent();
+        while (dir != null && !Files.isDirectory(dir)) {
+            dir = dir.getParent();
+        }
+        if (dir == null) {
+            throw new WanakuException("No existing parent directory for " + file);
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,231 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.CamelContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.Downloader;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.ResourceRefs;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.ResourceType;
+
+/**
+ * Periodically downloads a route resource, and optionally its properties resource, and reloads the routes in
+ * place when the content of either changes.
+ * <p>
+ * Each poll goes through the given {@link Downloader}, so with the data store downloader and its resource
+ * cache an unchanged resource costs a single conditional request. When a downloaded file differs from the
+ * one currently loaded, the routes are reloaded with {@link WanakuRoutesLoader#reloadRoute(CamelContext, String)},
+ * which also reloads the {@code service.properties} next to them, keeping the rest of the {@link CamelContext}
+ * running. When a route group is set, the reloaded routes are assigned to it as they were when first loaded.
+ */
+public final class RouteReloader implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(RouteReloader.class);
+
+    private final CamelContext context;
+    private final WanakuRoutesLoader routesLoader;
+    private final Downloader downloader;
+    private final ResourceRefs<URI> routesRef;
+    private final ResourceRefs<URI> propertiesRef;
+    private final String group;
+    private final Duration interval;
+
+    private ScheduledExecutorService scheduler;
+    private byte[] loadedDigest;
+    private byte[] loadedPropertiesDigest;
+
+    private RouteReloader(Builder builder) {
+        this.context = Objects.requireNonNull(builder.context, "context must not be null");
+        this.routesLoader = builder.routesLoader != null ? builder.routesLoader : new WanakuRoutesLoader();
+        this.downloader = Objects.requireNonNull(builder.downloader, "downloader must not be null");
+        this.routesRef = Objects.requireNonNull(builder.routesRef, "routesRef must not be null");
+        this.propertiesRef = builder.propertiesRef;
+        this.group = builder.group;
+        this.interval = builder.interval;
+    }
+
+    /**
+     * Starts polling, recording the given file as the one currently loaded.
+     *
+     * @param loadedRoutes the route file the context was started with
+     */
+    public void start(Path loadedRoutes) {
+        start(loadedRoutes, null);
+    }
+
+    /**
+     * Starts polling, recording the given files as the ones currently loaded.
+     *
+     * @param loadedRoutes     the route file the context was started with
+     * @param loadedProperties the properties file the context was started with, or {@code null} if none
+     */
+    public synchronized void start(Path loadedRoutes, Path loadedProperties) {
+        if (scheduler != null) {
+            return;
+        }
+
+        loadedDigest = digest(loadedRoutes);
+        loadedPropertiesDigest = digest(loadedProperties);
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("wanaku-route-reload").daemon().factory());
+        scheduler.scheduleWithFixedDelay(
+                this::pollQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        LOG.info("Watching {} for route changes every {} s", routesRef.ref(), interval.toSeconds());
+    }
+
+    /**
+     * Downloads the route and properties resources once and reloads the routes if the content of either changed.
+     *
+     * @return {@code true} if the routes were reloaded
+     * @throws Exception if a resource cannot be downloaded or the routes cannot be reloaded
+     */
+    public synchronized boolean poll() throws Exception {
+        Map<ResourceType, Path> downloaded = new EnumMap<>(ResourceType.class);
+        downloader.downloadResource(routesRef, downloaded);
+        if (propertiesRef != null) {
+            downloader.downloadResource(propertiesRef, downloaded);
+        }
+
+        Path routes = downloaded.get(routesRef.resourceType());
+        if (routes == null) {
+            LOG.debug("No content available for {}", routesRef.ref());
+            return false;
+        }
+
+        byte[] current = digest(routes);
+        byte[] currentProperties =
+                propertiesRef != null ? digest(downloaded.get(propertiesRef.resourceType())) : loadedPropertiesDigest;
+        boolean routesChanged = !Arrays.equals(current, loadedDigest);
+        if (!routesChanged && Arrays.equals(currentProperties, loadedPropertiesDigest)) {
+            return false;
+        }
+
+        LOG.info(
+                "{} resource {} changed, reloading the routes",
+                routesChanged ? "Route" : "Properties",
+                routesChanged ? routesRef.ref() : propertiesRef.ref());
+        routesLoader.reloadRoute(context, routes.toUri().toString(), group);
+        loadedDigest = current;
+        loadedPropertiesDigest = currentProperties;
+        return true;
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception e) {
+            LOG.warn("Unable to reload the routes from {}: {}", routesRef.ref(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static byte[] digest(Path file) {
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream is = new DigestInputStream(Files.newInputStream(file), digest)) {
+                is.transferTo(OutputStream.nullOutputStream());
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new WanakuException("SHA-256 is not available", e);
+        } catch (IOException e) {
+            throw new WanakuException("Unable to read " + file, e);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private CamelContext context;
+        private WanakuRoutesLoader routesLoader;
+        private Downloader downloader;
+        private ResourceRefs<URI> routesRef;
+        private ResourceRefs<URI> propertiesRef;
+        private String group;
+        private Duration interval = Duration.ofSeconds(30);
+
+        private Builder() {}
+
+        public Builder context(CamelContext context) {
+            this.context = context;
+            return this;
+        }
+
+        public Builder routesLoader(WanakuRoutesLoader routesLoader) {
+            this.routesLoader = routesLoader;
+            return this;
+        }
+
+        /**
+         * Sets the downloader used to fetch the route resource, typically the one returned by
+         * {@code DownloaderFactory.getDownloader(routesRef.ref())}.
+         */
+        public Builder downloader(Downloader downloader) {
+            this.downloader = downloader;
+            return this;
+        }
+
+        public Builder routesRef(ResourceRefs<URI> routesRef) {
+            this.routesRef = routesRef;
+            return this;
+        }
+
+        /**
+         * Sets the properties resource to watch along with the routes, downloaded with the same downloader.
+         * It is expected to be downloaded as the {@code service.properties} next to the route file.
+         */
+        public Builder propertiesRef(ResourceRefs<URI> propertiesRef) {
+            this.propertiesRef = propertiesRef;
+            return this;
+        }
+
+        /**
+         * Sets the group the routes were loaded into, or {@code null} if they were loaded without one.
+         */
+        public Builder group(String group) {
+            this.group = group;
+            return this;
+        }
+
+        public Builder interval(Duration interval) {
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        public RouteReloader build() {
+            return new RouteReloader(this);
+        }
+    }
+}
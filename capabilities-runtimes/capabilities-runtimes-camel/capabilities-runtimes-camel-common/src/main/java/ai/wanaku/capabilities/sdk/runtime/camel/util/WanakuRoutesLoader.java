@@ -22,17 +22,36 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.camel.CamelContext;
-import org.apache.camel.ExtendedCamelContext;
+import org.apache.camel.Route;
+import org.apache.camel.RouteConfigurationsBuilder;
+import org.apache.camel.RoutesBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.builder.RouteBuilderLifecycleStrategy;
+import org.apache.camel.model.RouteDefinition;
 import org.apache.camel.spi.ContextServicePlugin;
 import org.apache.camel.spi.Resource;
 import org.apache.camel.spi.ResourceLoader;
 import org.apache.camel.spi.RoutesLoader;
 import org.apache.camel.support.PluginHelper;
+import org.apache.camel.util.FileUtil;
 import org.slf4j.Logger;
 import ai.wanaku.capabilities.sdk.runtime.camel.exceptions.RouteLoadingException;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
 
 /**
  * Loads Camel route definitions from resource paths, automatically downloading any required Maven
@@ -45,6 +64,12 @@ import ai.wanaku.capabilities.sdk.runtime.camel.exceptions.RouteLoadingException
 public class WanakuRoutesLoader {
     private static final Logger LOG = org.slf4j.LoggerFactory.getLogger(WanakuRoutesLoader.class);
 
+    /**
+     * The contexts the discovered plugins were already loaded into, so they are loaded only once per context.
+     */
+    private static final Set<CamelContext> PLUGINS_LOADED =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
     /**
      * Creates a new loader.
      */
@@ -59,33 +84,267 @@ public class WanakuRoutesLoader {
      * @throws RouteLoadingException if the route cannot be parsed or loaded
      */
     public void loadRoute(CamelContext context, String path) {
-        final ExtendedCamelContext camelContextExtension = context.getCamelContextExtension();
+        loadRoutes(context, List.of(path));
+    }
+
+    /**
+     * Loads the route definitions from all the given paths and builds the context once.
+     * <p>
+     * The {@code service.properties} of each directory holding route files is loaded once, the plugins
+     * discovered on the application class path are loaded into the context once, and the route files are
+     * parsed in parallel. The routes are then added to the context in the order of the given paths, route
+     * configurations first, as a single {@link RoutesLoader#loadRoutes(Resource...)} call would.
+     *
+     * @param context the Camel context to load the routes into
+     * @param paths   the resource paths to the route definitions
+     * @throws RouteLoadingException if a route file cannot be parsed or loaded
+     */
+    public void loadRoutes(CamelContext context, List<String> paths) {
+        loadRoutes(context, paths, null);
+    }
+
+    /**
+     * Loads the route definitions from all the given paths, as {@link #loadRoutes(CamelContext, List)} does,
+     * and assigns the routes that do not declare a group to the given one.
+     * <p>
+     * A runtime hosting several systems in the same context loads the routes of each system into a group named
+     * after it, so that the routes of a system can be told apart, and managed together, by their group.
+     *
+     * @param context the Camel context to load the routes into
+     * @param paths   the resource paths to the route definitions
+     * @param group   the route group, or {@code null} to leave the routes as they are defined
+     * @throws RouteLoadingException if a route file cannot be parsed or loaded
+     */
+    public void loadRoutes(CamelContext context, List<String> paths, String group) {
+        try (StartupTimeline.Phase ignored = StartupTimeline.global().begin(StartupTimeline.ROUTE_LOADING)) {
+            doLoadRoutes(context, paths, group);
+        }
+    }
 
-        loadServiceProperties(context, path);
+    private void doLoadRoutes(CamelContext context, List<String> paths, String group) {
+        Set<Path> directories = new LinkedHashSet<>();
+        for (String path : paths) {
+            directories.add(Path.of(URI.create(path)).getParent());
+        }
+        for (Path directory : directories) {
+            loadServiceProperties(context, directory);
+        }
         discoverAndLoadPlugins(context);
 
+        final ResourceLoader resourceLoader = PluginHelper.getResourceLoader(context);
+        final RoutesLoader routesLoader = context.getCamelContextExtension().getContextPlugin(RoutesLoader.class);
+
+        List<Resource> resources = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            Resource resource = resourceLoader.resolveResource(path);
+            try {
+                // resolve the loaders up front, so that the parallel parsing below does not race to create them
+                routesLoader.getRoutesLoader(FileUtil.onlyExt(resource.getLocation(), true));
+            } catch (Exception e) {
+                throw new RouteLoadingException(path, e);
+            }
+            resources.add(resource);
+        }
+
+        List<Collection<RoutesBuilder>> builders = findRoutesBuilders(routesLoader, paths, resources);
+        if (group != null) {
+            builders.forEach(b -> assignGroup(b, group));
+        }
+
+        for (int i = 0; i < paths.size(); i++) {
+            try {
+                for (RoutesBuilder builder : builders.get(i)) {
+                    if (builder instanceof RouteConfigurationsBuilder configurations) {
+                        context.addRoutesConfigurations(configurations);
+                    }
+                }
+            } catch (Exception e) {
+                throw new RouteLoadingException(paths.get(i), e);
+            }
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            try {
+                for (RoutesBuilder builder : builders.get(i)) {
+                    context.addRoutes(builder);
+                }
+                for (RoutesBuilder builder : builders.get(i)) {
+                    context.addTemplatedRoutes(builder);
+                }
+            } catch (Exception e) {
+                throw new RouteLoadingException(paths.get(i), e);
+            }
+        }
+
+        context.build();
+    }
+
+    /**
+     * Sets the group of the routes that do not declare one, once the builders have created their definitions.
+     */
+    private static void assignGroup(Collection<RoutesBuilder> builders, String group) {
+        for (RoutesBuilder builder : builders) {
+            if (builder instanceof RouteBuilder routeBuilder) {
+                routeBuilder.addLifecycleInterceptor(new RouteBuilderLifecycleStrategy() {
+                    @Override
+                    public void afterConfigure(RouteBuilder configured) {
+                        for (RouteDefinition route :
+                                configured.getRouteCollection().getRoutes()) {
+                            if (route.getGroup() == null) {
+                                route.setGroup(group);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Parses each resource on its own virtual thread, returning the route builders in the order of the resources.
+     */
+    private static List<Collection<RoutesBuilder>> findRoutesBuilders(
+            RoutesLoader routesLoader, List<String> paths, List<Resource> resources) {
+        if (resources.size() == 1) {
+            try {
+                return List.of(routesLoader.findRoutesBuilders(resources.get(0)));
+            } catch (Exception e) {
+                throw new RouteLoadingException(paths.get(0), e);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Collection<RoutesBuilder>> builders = new ArrayList<>(resources.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Collection<RoutesBuilder>>> parsed = new ArrayList<>(resources.size());
+            for (Resource resource : resources) {
+                parsed.add(executor.submit(() -> routesLoader.findRoutesBuilders(resource)));
+            }
+
+            for (int i = 0; i < parsed.size(); i++) {
+                try {
+                    builders.add(parsed.get(i).get());
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    throw new RouteLoadingException(paths.get(i), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    throw new RouteLoadingException(paths.get(i), e);
+                }
+            }
+        }
+        LOG.info("Parsed {} route files in {} ms", resources.size(), (System.nanoTime() - start) / 1_000_000);
+        return builders;
+    }
+
+    /**
+     * Reloads the routes defined in {@code path} in place, leaving the rest of the context running.
+     * <p>
+     * The {@code service.properties} next to the resource is reloaded and the current content of the file is
+     * parsed. Only once it parses are the routes previously loaded from the same resource stopped and removed,
+     * and the new ones added and started, so a broken file leaves the running routes in place. Other routes, the
+     * registry, loaded components and their dependencies are kept, so a route change does not require restarting
+     * the capability.
+     *
+     * @param context the running Camel context holding the routes
+     * @param path    the resource path to the route definition, as given to {@link #loadRoute(CamelContext, String)}
+     * @return the IDs of the routes loaded from the new definition
+     * @throws RouteLoadingException if the new definition cannot be parsed, or the routes cannot be replaced
+     */
+    public Set<String> reloadRoute(CamelContext context, String path) {
+        return reloadRoute(context, path, null);
+    }
+
+    /**
+     * Reloads the routes defined in {@code path} in place, as {@link #reloadRoute(CamelContext, String)} does,
+     * and assigns the reloaded routes that do not declare a group to the given one.
+     *
+     * @param context the running Camel context holding the routes
+     * @param path    the resource path to the route definition, as given to
+     *                {@link #loadRoutes(CamelContext, List, String)}
+     * @param group   the route group, or {@code null} to leave the routes as they are defined
+     * @return the IDs of the routes loaded from the new definition
+     * @throws RouteLoadingException if the new definition cannot be parsed, or the routes cannot be replaced
+     */
+    public Set<String> reloadRoute(CamelContext context, String path, String group) {
         final ResourceLoader resourceLoader = PluginHelper.getResourceLoader(context);
         final Resource resource = resourceLoader.resolveResource(path);
 
+        loadServiceProperties(context, Path.of(URI.create(path)).getParent());
+
+        Collection<RoutesBuilder> builders;
+        try {
+            builders = context.getCamelContextExtension()
+                    .getContextPlugin(RoutesLoader.class)
+                    .findRoutesBuilders(resource);
+            if (group != null) {
+                assignGroup(builders, group);
+            }
+            for (RoutesBuilder builder : builders) {
+                // configure the builders now, so that a definition that cannot be parsed fails before any route is
+                // removed
+                if (builder instanceof RouteBuilder routeBuilder) {
+                    routeBuilder.configureRoutes(context);
+                }
+            }
+        } catch (Exception e) {
+            throw new RouteLoadingException(path, e);
+        }
+
         try {
-            camelContextExtension.getContextPlugin(RoutesLoader.class).loadRoutes(resource);
+            List<String> previous = routesFrom(context, resource);
+            for (String routeId : previous) {
+                context.getRouteController().stopRoute(routeId);
+                context.removeRoute(routeId);
+            }
+            LOG.info("Removed {} route(s) loaded from {}", previous.size(), path);
+
+            for (RoutesBuilder builder : builders) {
+                if (builder instanceof RouteConfigurationsBuilder configurations) {
+                    context.addRoutesConfigurations(configurations);
+                }
+            }
+            for (RoutesBuilder builder : builders) {
+                context.addRoutes(builder);
+            }
+            for (RoutesBuilder builder : builders) {
+                context.addTemplatedRoutes(builder);
+            }
         } catch (Exception e) {
             throw new RouteLoadingException(path, e);
         }
 
-        context.build();
+        Set<String> loaded = new LinkedHashSet<>(routesFrom(context, resource));
+        LOG.info("Reloaded route(s) {} from {}", loaded, path);
+        return loaded;
+    }
+
+    private static List<String> routesFrom(CamelContext context, Resource resource) {
+        List<String> routeIds = new ArrayList<>();
+        for (Route route : context.getRoutes()) {
+            Resource source = route.getSourceResource();
+            if (source != null && Objects.equals(source.getLocation(), resource.getLocation())) {
+                routeIds.add(route.getRouteId());
+            }
+        }
+        return routeIds;
     }
 
-    private void loadServiceProperties(CamelContext context, String routePath) {
-        Path routeFile = Path.of(URI.create(routePath));
-        Path serviceProps = routeFile.getParent().resolve("service.properties");
+    private void loadServiceProperties(CamelContext context, Path routeDir) {
+        Path serviceProps = routeDir.resolve("service.properties");
 
         if (!Files.exists(serviceProps)) {
             return;
         }
 
-        context.getPropertiesComponent().addLocation("file:" + serviceProps.toAbsolutePath());
-        LOG.info("Registered service.properties as Camel property source: {}", serviceProps);
+        String location = serviceProps.toAbsolutePath().toString();
+        if (context.getPropertiesComponent().getLocations().stream().anyMatch(l -> l.contains(location))) {
+            context.getPropertiesComponent().reloadProperties("file:" + location);
+            LOG.info("Reloaded service.properties: {}", serviceProps);
+        } else {
+            context.getPropertiesComponent().addLocation("file:" + location);
+            LOG.info("Registered service.properties as Camel property source: {}", serviceProps);
+        }
 
         try (InputStream is = Files.newInputStream(serviceProps)) {
             Properties props = new Properties();
@@ -103,6 +362,11 @@ public class WanakuRoutesLoader {
     }
 
     private void discoverAndLoadPlugins(CamelContext context) {
+        if (!PLUGINS_LOADED.add(context)) {
+            LOG.debug("Discovered plugins are already loaded into {}", context.getName());
+            return;
+        }
+
         ServiceLoader<ContextServicePlugin> plugins =
                 ServiceLoader.load(ContextServicePlugin.class, context.getApplicationContextClassLoader());
 
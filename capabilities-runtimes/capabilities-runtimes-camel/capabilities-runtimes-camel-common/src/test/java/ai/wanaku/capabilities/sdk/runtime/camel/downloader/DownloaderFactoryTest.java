@@ -0,0 +1,56 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloaderFactoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    public static class TestProvider implements DownloaderProvider {
+        @Override
+        public Set<String> schemes() {
+            return Set.of("test");
+        }
+
+        @Override
+        public Downloader create(DownloaderFactory factory) {
+            return (resourceName, downloadedResources) -> {};
+        }
+    }
+
+    @Test
+    void resolvesDownloadersByScheme() {
+        DownloaderFactory factory = new DownloaderFactory(null, tempDir);
+        assertNull(factory.getResourceCache());
+
+        assertInstanceOf(FileDownloader.class, factory.getDownloader(URI.create("file:///tmp/routes.camel.yaml")));
+        assertInstanceOf(
+                HttpDownloader.class, factory.getDownloader(URI.create("https://example.com/routes.camel.yaml")));
+        assertSame(
+                factory.getDownloader(URI.create("http://example.com/a.yaml")),
+                factory.getDownloader(URI.create("HTTPS://example.com/b.yaml")));
+
+        // discovered through META-INF/services
+        Downloader discovered = factory.getDownloader(URI.create("test://routes"));
+        assertSame(discovered, factory.getDownloader(URI.create("test://other")));
+
+        Downloader replacement = (resourceName, downloadedResources) -> {};
+        factory.registerProvider(DownloaderProvider.of(f -> replacement, "test"));
+        assertSame(replacement, factory.getDownloader(URI.create("test://routes")));
+
+        IllegalArgumentException e =
+                assertThrows(IllegalArgumentException.class, () -> factory.getDownloader(URI.create("ftp://host/x")));
+        assertTrue(e.getMessage().contains("datastore, file, http, https, test"));
+    }
+}
@@ -0,0 +1,172 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpDownloaderTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private byte[] content;
+    private int rangeOverrun;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("- route: ").append(i).append('\n');
+        }
+        content = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/bundles/", this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        requests.add(exchange.getRequestMethod() + " " + (range != null ? range : ""));
+
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        int first = 0;
+        int last = content.length - 1;
+        int status = 200;
+        if (range != null && ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            first = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                last = Integer.parseInt(bounds[1]);
+            }
+            status = 206;
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+        }
+
+        int length = last - first + 1;
+        if (head) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        boolean overrun = status == 206 && rangeOverrun > 0;
+        exchange.sendResponseHeaders(status, overrun ? 0 : length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(content, first, length);
+            if (overrun) {
+                os.write(new byte[rangeOverrun]);
+            }
+        }
+    }
+
+    private URI bundleUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/bundles/routes.camel.yaml");
+    }
+
+    private HttpDownloader downloader(Path dataDir, ResourceCache cache, long parallelThreshold) {
+        return new HttpDownloader(HttpClient.newHttpClient(), dataDir, cache, parallelThreshold, 4);
+    }
+
+    private Path download(HttpDownloader downloader) throws Exception {
+        Map<ResourceType, Path> downloaded = new EnumMap<>(ResourceType.class);
+        downloader.downloadResource(new ResourceRefs<>(ResourceType.ROUTES_REF, bundleUri()), downloaded);
+        return downloaded.get(ResourceType.ROUTES_REF);
+    }
+
+    @Test
+    void revalidatesCachedCopy() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        ResourceCache cache = new ResourceCache(dataDir.resolve(DownloaderFactory.CACHE_DIR));
+
+        Path routes = download(downloader(dataDir, cache, Long.MAX_VALUE));
+        assertEquals(dataDir.resolve("routes.camel.yaml"), routes);
+        assertArrayEquals(content, Files.readAllBytes(routes));
+
+        Files.delete(routes);
+        requests.clear();
+        routes = download(downloader(dataDir, cache, Long.MAX_VALUE));
+
+        assertArrayEquals(content, Files.readAllBytes(routes));
+        assertEquals(List.of("HEAD "), requests);
+    }
+
+    @Test
+    void resumesPartialDownload() throws Exception {
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Files.write(dataDir.resolve(".routes.camel.yaml.part"), Arrays.copyOf(content, 100));
+        Files.writeString(dataDir.resolve(".routes.camel.yaml.part.validator"), ETAG);
+
+        Path routes = download(downloader(dataDir, null, Long.MAX_VALUE));
+
+        assertArrayEquals(content, Files.readAllBytes(routes));
+        assertEquals(List.of("HEAD ", "GET bytes=100-"), requests);
+        assertFalse(Files.exists(dataDir.resolve(".routes.camel.yaml.part")));
+        assertFalse(Files.exists(dataDir.resolve(".routes.camel.yaml.part.validator")));
+    }
+
+    @Test
+    void downloadsLargeResourceInParallelRanges() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+
+        Path routes = download(downloader(dataDir, null, 1024));
+
+        assertArrayEquals(content, Files.readAllBytes(routes));
+        assertEquals(5, requests.size());
+        assertTrue(requests.stream().skip(1).allMatch(r -> r.startsWith("GET bytes=")));
+    }
+
+    @Test
+    void rejectsRangesLongerThanRequested() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        rangeOverrun = 10;
+
+        WanakuException e = assertThrows(WanakuException.class, () -> download(downloader(dataDir, null, 1024)));
+
+        assertTrue(e.getMessage().startsWith("Incomplete range"), e.getMessage());
+        assertFalse(Files.exists(dataDir.resolve("routes.camel.yaml")));
+        assertFalse(Files.exists(dataDir.resolve(".routes.camel.yaml.part")));
+    }
+}
@@ -0,0 +1,54 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaterializationStrategyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void placesFileWithEachStrategy() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("routes.camel.yaml"), "- route: {}");
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+
+        for (MaterializationStrategy strategy : MaterializationStrategy.values()) {
+            Path target = dataDir.resolve(strategy + ".camel.yaml");
+            Files.writeString(target, "stale");
+
+            Path placed = strategy.materialize(source, target);
+
+            assertEquals(strategy == MaterializationStrategy.IN_PLACE ? source : target, placed);
+            assertEquals("- route: {}", Files.readString(placed));
+        }
+
+        assertTrue(Files.isSameFile(source, dataDir.resolve("HARD_LINK.camel.yaml")));
+        assertTrue(Files.isSymbolicLink(dataDir.resolve("SYMLINK.camel.yaml")));
+        assertEquals("stale", Files.readString(dataDir.resolve("IN_PLACE.camel.yaml")));
+        try (var files = Files.list(dataDir)) {
+            assertEquals(MaterializationStrategy.values().length, files.count());
+        }
+    }
+
+    @Test
+    void fileDownloaderUsesStrategy() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("routes.camel.yaml"), "- route: {}");
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Map<ResourceType, Path> downloaded = new EnumMap<>(ResourceType.class);
+
+        new FileDownloader(dataDir, MaterializationStrategy.SYMLINK)
+                .downloadResource(new ResourceRefs<>(ResourceType.ROUTES_REF, source.toUri()), downloaded);
+
+        Path routes = downloaded.get(ResourceType.ROUTES_REF);
+        assertEquals(dataDir.resolve("routes.camel.yaml"), routes);
+        assertTrue(Files.isSymbolicLink(routes));
+    }
+}
@@ -0,0 +1,80 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void storedContentIsReusedAfterRestart() throws Exception {
+        Path cacheDir = tempDir.resolve(".cache");
+        ResourceCache cache = new ResourceCache(cacheDir);
+        Path download = Files.writeString(cache.newTempFile(), "- route: {}");
+
+        ResourceCache.Entry stored = cache.store("datastore:routes", download, "\"v1\"");
+        assertFalse(Files.exists(download));
+
+        ResourceCache restarted = new ResourceCache(cacheDir);
+        ResourceCache.Entry cached = restarted.lookup("datastore:routes");
+        assertNotNull(cached);
+        assertEquals(stored.sha256(), cached.sha256());
+        assertEquals("\"v1\"", cached.etag());
+
+        Path target = tempDir.resolve("routes.camel.yaml");
+        restarted.materialize(cached, target);
+        assertEquals("- route: {}", Files.readString(target));
+        assertTrue(Files.isSameFile(target, cached.path()));
+    }
+
+    @Test
+    void replacedContentIsDeleted() throws Exception {
+        ResourceCache cache = new ResourceCache(tempDir);
+
+        ResourceCache.Entry first =
+                cache.store("datastore:routes", Files.writeString(cache.newTempFile(), "first"), null);
+        ResourceCache.Entry second =
+                cache.store("datastore:routes", Files.writeString(cache.newTempFile(), "second"), null);
+
+        assertFalse(Files.exists(first.path()));
+        assertEquals("second", Files.readString(second.path()));
+        assertNull(cache.lookup("datastore:routes").etag());
+    }
+
+    @Test
+    void contentReferencedByAnotherProcessIsKept() throws Exception {
+        ResourceCache first = new ResourceCache(tempDir);
+        ResourceCache second = new ResourceCache(tempDir);
+
+        ResourceCache.Entry shared =
+                first.store("datastore:routes", Files.writeString(first.newTempFile(), "shared"), null);
+        second.store("catalog:demo", Files.writeString(second.newTempFile(), "shared"), null);
+        first.store("datastore:routes", Files.writeString(first.newTempFile(), "replaced"), null);
+
+        assertTrue(Files.exists(shared.path()));
+        assertNotNull(new ResourceCache(tempDir).lookup("catalog:demo"));
+        assertNotNull(second.lookup("datastore:routes"));
+    }
+
+    @Test
+    void corruptedContentIsDiscarded() throws Exception {
+        ResourceCache cache = new ResourceCache(tempDir);
+        ResourceCache.Entry entry =
+                cache.store("catalog:demo", Files.writeString(cache.newTempFile(), "original"), "\"v1\"");
+
+        Files.writeString(entry.path(), "modified");
+
+        assertNull(cache.lookup("catalog:demo"));
+        assertFalse(Files.exists(entry.path()));
+    }
+}
@@ -0,0 +1,114 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.downloader;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceDownloaderCallbackTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void completesEachResourceIndependently() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Path dependencies = Files.writeString(source.resolve("dependencies.txt"), "org.acme:acme:1.0");
+
+        ResourceDownloaderCallback callback = new ResourceDownloaderCallback(
+                new DownloaderFactory(null, dataDir),
+                List.of(
+                        new ResourceRefs<>(
+                                ResourceType.ROUTES_REF,
+                                source.resolve("missing.camel.yaml").toUri()),
+                        new ResourceRefs<>(ResourceType.DEPENDENCY_REF, dependencies.toUri())));
+
+        assertFalse(callback.whenDownloaded(ResourceType.DEPENDENCY_REF).isDone());
+
+        callback.onRegistration(null, null);
+
+        assertEquals(
+                dataDir.resolve("dependencies.txt"),
+                callback.whenDownloaded(ResourceType.DEPENDENCY_REF).join());
+        assertThrows(CompletionException.class, () -> callback.whenDownloaded(ResourceType.ROUTES_REF)
+                .join());
+        assertNull(callback.whenDownloaded(ResourceType.PROPERTIES_REF).join());
+        assertFalse(callback.whenAllDownloaded().join());
+    }
+
+    @Test
+    void reportsOutcomeOfEachDownload() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Path routes = Files.writeString(source.resolve("routes.camel.yaml"), "- route: {}");
+        Path dependencies = Files.writeString(source.resolve("dependencies.txt"), "org.acme:acme:1.0");
+
+        ResourceDownloaderCallback callback = new ResourceDownloaderCallback(
+                new DownloaderFactory(null, dataDir),
+                List.of(
+                        new ResourceRefs<>(ResourceType.ROUTES_REF, routes.toUri()),
+                        new ResourceRefs<>(ResourceType.DEPENDENCY_REF, dependencies.toUri()),
+                        new ResourceRefs<>(
+                                ResourceType.PROPERTIES_REF,
+                                source.resolve("missing.properties").toUri())),
+                DownloaderConfiguration.newBuilder().maxParallelDownloads(2).build());
+
+        callback.onRegistration(null, null);
+
+        assertFalse(callback.waitForDownloads());
+        assertEquals(3, callback.getOutcomes().size());
+        for (ResourceDownloadOutcome outcome : callback.getOutcomes()) {
+            assertEquals(1, outcome.attempts());
+            assertEquals(outcome.resource().resourceType() != ResourceType.PROPERTIES_REF, outcome.isSuccess());
+            assertEquals(outcome.isSuccess(), outcome.failure() == null);
+        }
+        assertEquals(2, callback.getDownloadedResources().size());
+    }
+
+    @Test
+    void downloadsAgainOnEachRegistration() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Path routes = source.resolve("routes.camel.yaml");
+
+        ResourceDownloaderCallback callback = new ResourceDownloaderCallback(
+                new DownloaderFactory(null, dataDir),
+                List.of(new ResourceRefs<>(ResourceType.ROUTES_REF, routes.toUri())));
+
+        callback.onRegistration(null, null);
+        assertFalse(callback.waitForDownloads());
+        assertThrows(CompletionException.class, () -> callback.whenDownloaded(ResourceType.ROUTES_REF)
+                .join());
+
+        Files.writeString(routes, "- route: {}");
+        callback.onRegistration(null, null);
+
+        assertTrue(callback.waitForDownloads());
+        assertEquals(1, callback.getOutcomes().size());
+        assertEquals(
+                dataDir.resolve("routes.camel.yaml"),
+                callback.whenDownloaded(ResourceType.ROUTES_REF).join());
+    }
+
+    @Test
+    void completesWhenThereIsNothingToDownload() {
+        ResourceDownloaderCallback callback =
+                new ResourceDownloaderCallback(new DownloaderFactory(null, tempDir), List.<ResourceRefs<URI>>of());
+
+        callback.onRegistration(null, null);
+
+        assertNull(callback.whenDownloaded(ResourceType.ROUTES_REF).join());
+        assertTrue(callback.whenAllDownloaded().join());
+        assertTrue(callback.waitForDownloads());
+    }
+}
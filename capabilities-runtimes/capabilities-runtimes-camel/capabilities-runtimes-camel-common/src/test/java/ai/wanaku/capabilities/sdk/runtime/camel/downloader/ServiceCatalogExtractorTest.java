@@ -4,8 +4,11 @@ import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
@@ -13,6 +16,7 @@ import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -61,6 +65,81 @@ class ServiceCatalogExtractorTest {
         assertEquals("test-api-key", extracted.getProperty("forage.tavily.api.key"));
     }
 
+    @Test
+    void testExtractOnlyRequestedSystem() throws Exception {
+        String base64Zip = createTestZipWithDeps("test-catalog", "sys1", "sys2");
+        Map<ResourceType, Path> result = ServiceCatalogExtractor.extract(base64Zip, "sys2", tempDir);
+
+        assertEquals("# Routes for sys2", Files.readString(result.get(ResourceType.ROUTES_REF)));
+        assertTrue(Files.exists(tempDir.resolve("sys2/sys2.dependencies.txt")));
+        assertFalse(Files.exists(tempDir.resolve("sys1")));
+        assertFalse(Files.exists(tempDir.resolve("index.properties")));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testExtractFromZipFile() throws Exception {
+        Path zipFile = Files.write(
+                tempDir.resolve("catalog.zip"), Base64.getDecoder().decode(createTestZip("test-catalog", "sys1")));
+        Path dataDir = tempDir.resolve("data");
+
+        Map<ResourceType, Path> result = ServiceCatalogExtractor.extract(zipFile, "sys1", dataDir);
+
+        assertEquals(dataDir.resolve("sys1/sys1.camel.yaml"), result.get(ResourceType.ROUTES_REF));
+        assertEquals("# Routes for sys1", Files.readString(result.get(ResourceType.ROUTES_REF)));
+    }
+
+    @Test
+    void testExtractOnlyRewritesChangedFiles() throws Exception {
+        Path dataDir = tempDir.resolve("data");
+        Path first = Files.write(
+                tempDir.resolve("first.zip"),
+                Base64.getDecoder().decode(createTestZipWithDeps("test-catalog", "sys1")));
+
+        CatalogChanges initial = ServiceCatalogExtractor.extractChanges(first, "sys1", dataDir);
+        assertEquals(2, initial.added().size());
+        assertTrue(initial.isChanged(ResourceType.ROUTES_REF));
+
+        CatalogChanges again = ServiceCatalogExtractor.extractChanges(first, "sys1", dataDir);
+        assertFalse(again.hasChanges());
+        assertEquals(2, again.unchanged().size());
+
+        Path routes = initial.resources().get(ResourceType.ROUTES_REF);
+        Files.writeString(routes, "# Routes edited locally");
+
+        CatalogChanges repaired = ServiceCatalogExtractor.extractChanges(first, "sys1", dataDir);
+        assertEquals(Set.of(routes), repaired.modified());
+        assertFalse(repaired.isChanged(ResourceType.DEPENDENCY_REF));
+        assertEquals("# Routes for sys1", Files.readString(routes));
+    }
+
+    @Test
+    void testExtractSeveralSystems() throws Exception {
+        Path zipFile = Files.write(
+                tempDir.resolve("catalog.zip"),
+                Base64.getDecoder().decode(createTestZipWithDeps("test-catalog", "sys1", "sys2")));
+        Path dataDir = tempDir.resolve("data");
+
+        Map<String, CatalogChanges> result =
+                ServiceCatalogExtractor.extractChanges(zipFile, List.of("sys2", "sys1"), dataDir);
+
+        assertEquals(List.of("sys2", "sys1"), List.copyOf(result.keySet()));
+        assertEquals(
+                "# Routes for sys1",
+                Files.readString(result.get("sys1").resources().get(ResourceType.ROUTES_REF)));
+        assertEquals(
+                "# Routes for sys2",
+                Files.readString(result.get("sys2").resources().get(ResourceType.ROUTES_REF)));
+        assertEquals(2, result.get("sys1").added().size());
+        assertEquals(2, result.get("sys2").added().size());
+
+        assertThrows(
+                WanakuException.class,
+                () -> ServiceCatalogExtractor.extractChanges(zipFile, List.of("sys1", "nonexistent"), dataDir));
+    }
+
     @Test
     void testExtractUnknownSystem() {
         String base64Zip = createTestZip("test-catalog", "sys1");
@@ -81,6 +160,61 @@ class ServiceCatalogExtractorTest {
         assertTrue(ex.getMessage().contains("catalog.routes.sys1"));
     }
 
+    @Test
+    void testExtractRoutesAtTheRoot() throws Exception {
+        Files.writeString(tempDir.resolve("service.properties"), "stale=true");
+        String base64Zip = createZip(Map.of(
+                "index.properties", "catalog.routes.sys1=sys1.camel.yaml\ncatalog.routes.sys2=sys2.camel.yaml\n",
+                "sys1.camel.yaml", "# Routes for sys1",
+                "sys2.camel.yaml", "# Routes for sys2",
+                "service.properties", "fresh=true"));
+
+        Map<ResourceType, Path> result = ServiceCatalogExtractor.extract(base64Zip, "sys1", tempDir);
+
+        assertEquals(tempDir.resolve("service.properties"), result.get(ResourceType.PROPERTIES_REF));
+        assertEquals("fresh=true", Files.readString(result.get(ResourceType.PROPERTIES_REF)));
+        assertFalse(Files.exists(tempDir.resolve("sys2.camel.yaml")));
+    }
+
+    @Test
+    void testStalePropertiesAreNotReported() throws Exception {
+        Files.createDirectories(tempDir.resolve("sys1"));
+        Files.writeString(tempDir.resolve("sys1/service.properties"), "stale=true");
+        String base64Zip = createTestZip("test-catalog", "sys1");
+
+        Map<ResourceType, Path> result = ServiceCatalogExtractor.extract(base64Zip, "sys1", tempDir);
+
+        assertFalse(result.containsKey(ResourceType.PROPERTIES_REF));
+    }
+
+    @Test
+    void testExtractSystemDirectorySubtree() throws Exception {
+        String base64Zip = createZip(Map.of(
+                "index.properties", "catalog.routes.sys1=sys1/sys1.camel.yaml\n",
+                "sys1/sys1.camel.yaml", "# Routes for sys1",
+                "sys1/templates/mail.txt", "Hello"));
+
+        ServiceCatalogExtractor.extract(base64Zip, "sys1", tempDir);
+
+        assertEquals("Hello", Files.readString(tempDir.resolve("sys1/templates/mail.txt")));
+    }
+
+    private String createZip(Map<String, String> entries) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+                for (Map.Entry<String, String> entry : entries.entrySet()) {
+                    zos.putNextEntry(new ZipEntry(entry.getKey()));
+                    zos.write(entry.getValue().getBytes());
+                    zos.closeEntry();
+                }
+            }
+            return Base64.getEncoder().encodeToString(baos.toByteArray());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private String createTestZip(String name, String... systems) {
         return createTestZipInternal(name, false, systems);
     }
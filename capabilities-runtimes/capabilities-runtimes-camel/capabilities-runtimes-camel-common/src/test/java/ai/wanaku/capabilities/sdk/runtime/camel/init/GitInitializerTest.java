@@ -0,0 +1,127 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.init;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import org.eclipse.jgit.api.Git;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitInitializerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        git.commit().setMessage(message).setSign(false).call();
+    }
+
+    private static long commitCount(Path repo) throws Exception {
+        try (Git git = Git.open(repo.toFile())) {
+            return StreamSupport.stream(git.log().call().spliterator(), false).count();
+        }
+    }
+
+    @Test
+    void clonesShallowAndSparse() throws Exception {
+        Path upstream = tempDir.resolve("upstream");
+        try (Git git = Git.init().setDirectory(upstream.toFile()).call()) {
+            Files.createDirectories(upstream.resolve("routes"));
+            Files.writeString(upstream.resolve("routes/orders.camel.yaml"), "- route: {}");
+            Files.writeString(upstream.resolve("README.md"), "v1");
+            commit(git, "first");
+            Files.writeString(upstream.resolve("README.md"), "v2");
+            commit(git, "second");
+        }
+
+        GitInitializer initializer = GitInitializer.newBuilder()
+                .repository(upstream.toUri().toString())
+                .dataDir(tempDir.resolve("data"))
+                .depth(1)
+                .paths(List.of("routes/"))
+                .build();
+        initializer.initialize();
+
+        Path cloned = initializer.getClonedRepoPath();
+        assertEquals("- route: {}", Files.readString(cloned.resolve("routes/orders.camel.yaml")));
+        assertFalse(Files.exists(cloned.resolve("README.md")));
+        assertEquals(1, commitCount(cloned));
+    }
+
+    @Test
+    void updatesExistingCloneToRef() throws Exception {
+        Path upstream = tempDir.resolve("upstream");
+        Path dataDir = tempDir.resolve("data");
+        try (Git git = Git.init()
+                .setDirectory(upstream.toFile())
+                .setInitialBranch("main")
+                .call()) {
+            Files.writeString(upstream.resolve("orders.camel.yaml"), "v1");
+            Files.writeString(upstream.resolve("legacy.camel.yaml"), "v1");
+            commit(git, "first");
+            git.tag()
+                    .setName("v1")
+                    .setSigned(false)
+                    .setAnnotated(true)
+                    .setMessage("v1")
+                    .call();
+
+            new GitInitializer(upstream.toUri().toString(), dataDir).initialize();
+
+            Files.writeString(upstream.resolve("orders.camel.yaml"), "v2");
+            Files.delete(upstream.resolve("legacy.camel.yaml"));
+            commit(git, "second");
+        }
+
+        GitInitializer initializer = GitInitializer.newBuilder()
+                .repository(upstream.toUri().toString())
+                .dataDir(dataDir)
+                .ref("main")
+                .build();
+        initializer.initialize();
+
+        Path cloned = initializer.getClonedRepoPath();
+        assertEquals("v2", Files.readString(cloned.resolve("orders.camel.yaml")));
+        assertFalse(Files.exists(cloned.resolve("legacy.camel.yaml")));
+
+        GitInitializer.newBuilder()
+                .repository(upstream.toUri().toString())
+                .dataDir(dataDir)
+                .ref("v1")
+                .depth(1)
+                .build()
+                .initialize();
+
+        assertEquals("v1", Files.readString(cloned.resolve("orders.camel.yaml")));
+        assertTrue(Files.exists(cloned.resolve("legacy.camel.yaml")));
+    }
+
+    @Test
+    void failedCloneIsRetriedOnNextStart() throws Exception {
+        Path upstream = tempDir.resolve("upstream");
+        Path dataDir = tempDir.resolve("data");
+        String url = upstream.toUri().toString();
+
+        assertThrows(Exception.class, () -> new GitInitializer(url, dataDir).initialize());
+        assertFalse(Files.exists(dataDir.resolve("cloned-repo")));
+
+        try (Git git = Git.init().setDirectory(upstream.toFile()).call()) {
+            Files.writeString(upstream.resolve("orders.camel.yaml"), "v1");
+            commit(git, "first");
+        }
+        Git.init().setDirectory(dataDir.resolve("cloned-repo").toFile()).call().close();
+
+        GitInitializer initializer = new GitInitializer(url, dataDir);
+        initializer.initialize();
+
+        assertEquals("v1", Files.readString(initializer.getClonedRepoPath().resolve("orders.camel.yaml")));
+    }
+}
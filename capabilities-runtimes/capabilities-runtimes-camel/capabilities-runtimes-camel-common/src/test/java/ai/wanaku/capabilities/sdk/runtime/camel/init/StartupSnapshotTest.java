@@ -0,0 +1,101 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.init;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.ResourceType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StartupSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restoresExportedSnapshot() throws Exception {
+        Path source = tempDir.resolve("source");
+        Path routes = write(source.resolve("sys1/routes.camel.yaml"), "- route: {}");
+        Path deps = write(source.resolve("sys1/dependencies.txt"), "org.example:lib:1.0");
+        write(source.resolve("sys1/service.properties"), "key=value");
+        Path second = write(tempDir.resolve("repo/b/lib-1.0.jar"), "second");
+        Path first = write(tempDir.resolve("repo/a/lib-1.0.jar"), "first");
+
+        Path archive = tempDir.resolve("snapshot/startup.zip");
+        StartupSnapshot.newBuilder()
+                .dataDir(source)
+                .resources(Map.of(ResourceType.ROUTES_REF, routes, ResourceType.DEPENDENCY_REF, deps))
+                .dependencies(List.of(first, second))
+                .registration("service.name", "sys1")
+                .build()
+                .export(archive);
+
+        Path target = tempDir.resolve("target");
+        Path unchanged = write(target.resolve("sys1/service.properties"), "key=value");
+        FileTime modified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(unchanged, modified);
+
+        StartupSnapshot restored = StartupSnapshot.restore(archive, target);
+
+        assertEquals(
+                target.resolve("sys1/routes.camel.yaml"),
+                restored.getResources().get(ResourceType.ROUTES_REF));
+        assertEquals("- route: {}", Files.readString(restored.getResources().get(ResourceType.ROUTES_REF)));
+        assertEquals(
+                "org.example:lib:1.0", Files.readString(restored.getResources().get(ResourceType.DEPENDENCY_REF)));
+        assertEquals(modified, Files.getLastModifiedTime(unchanged));
+        assertEquals(2, restored.getDependencies().size());
+        assertEquals("first", Files.readString(restored.getDependencies().get(0)));
+        assertEquals("second", Files.readString(restored.getDependencies().get(1)));
+        assertEquals("sys1", restored.getRegistration().get("service.name"));
+    }
+
+    @Test
+    void rejectsCorruptedSnapshot() throws Exception {
+        Path source = tempDir.resolve("source");
+        Path routes = write(source.resolve("sys1/routes.camel.yaml"), "- route: {}");
+        Path archive = tempDir.resolve("startup.zip");
+        StartupSnapshot.newBuilder()
+                .dataDir(source)
+                .resources(Map.of(ResourceType.ROUTES_REF, routes))
+                .dependencies(List.of(write(tempDir.resolve("lib.jar"), "jar")))
+                .build()
+                .export(archive);
+
+        Path tampered = tempDir.resolve("tampered.zip");
+        try (ZipFile in = new ZipFile(archive.toFile());
+                ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(tampered))) {
+            for (ZipEntry entry : in.stream().toList()) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().startsWith("lib/")) {
+                    out.write("modified".getBytes());
+                } else {
+                    try (InputStream is = in.getInputStream(entry)) {
+                        is.transferTo(out);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+
+        Path target = tempDir.resolve("target");
+        assertThrows(WanakuException.class, () -> StartupSnapshot.restore(tampered, target));
+        assertFalse(Files.exists(target.resolve("sys1/routes.camel.yaml")));
+    }
+
+    private static Path write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
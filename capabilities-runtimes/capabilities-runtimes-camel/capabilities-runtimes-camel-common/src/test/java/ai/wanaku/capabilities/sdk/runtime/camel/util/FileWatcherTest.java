@@ -0,0 +1,71 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void completesWhenAllFilesExist() throws Exception {
+        FileWatcher watcher = new FileWatcher();
+        Path routes = tempDir.resolve("routes.camel.yaml");
+        Path dependencies = tempDir.resolve("nested/dependencies.txt");
+
+        CompletableFuture<Void> available = watcher.whenAvailable(List.of(routes, dependencies), Duration.ofMinutes(1));
+        assertEquals(1, watcher.watchedDirectories());
+
+        Files.writeString(routes, "- route: {}");
+        Files.createDirectories(dependencies.getParent());
+        Thread.sleep(100);
+        assertFalse(available.isDone());
+
+        Files.writeString(dependencies, "org.acme:acme:1.0");
+        available.get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, watcher.watchedDirectories());
+    }
+
+    @Test
+    void completesImmediatelyForExistingFiles() throws Exception {
+        FileWatcher watcher = new FileWatcher();
+        Path routes = Files.writeString(tempDir.resolve("routes.camel.yaml"), "- route: {}");
+
+        assertTrue(watcher.whenAvailable(List.of(routes), null).isDone());
+        assertEquals(0, watcher.watchedDirectories());
+    }
+
+    @Test
+    void failsAfterDeadline() {
+        FileWatcher watcher = new FileWatcher();
+
+        CompletableFuture<Void> available =
+                watcher.whenAvailable(List.of(tempDir.resolve("never")), Duration.ofMillis(200));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> available.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        // the registration is released by a completion callback, which may run after get() returns
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (watcher.watchedDirectories() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, watcher.watchedDirectories());
+    }
+}
@@ -0,0 +1,147 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Route;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.FileDownloader;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.ResourceRefs;
+import ai.wanaku.capabilities.sdk.runtime.camel.downloader.ResourceType;
+import ai.wanaku.capabilities.sdk.runtime.camel.exceptions.RouteLoadingException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteReloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void changedRoutesAreReloadedInPlace() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Path published = Files.writeString(source.resolve("routes.camel.yaml"), routes("first", "second"));
+        Path loaded = Files.copy(published, dataDir.resolve("routes.camel.yaml"));
+
+        try (CamelContext context = new DefaultCamelContext()) {
+            WanakuRoutesLoader loader = new WanakuRoutesLoader();
+            loader.loadRoute(context, loaded.toUri().toString());
+            context.start();
+            context.addRoutes(new RouteBuilder() {
+                @Override
+                public void configure() {
+                    from("direct:unrelated").routeId("unrelated").log("unrelated");
+                }
+            });
+
+            RouteReloader reloader = RouteReloader.newBuilder()
+                    .context(context)
+                    .routesLoader(loader)
+                    .downloader(new FileDownloader(dataDir))
+                    .routesRef(ResourceRefs.newRoutesRef(published.toUri().toString()))
+                    .build();
+            reloader.start(loaded);
+
+            try (reloader) {
+                assertFalse(reloader.poll());
+
+                Files.writeString(published, routes("first", "third"));
+                assertTrue(reloader.poll());
+
+                assertNotNull(context.getRoute("first"));
+                assertNotNull(context.getRoute("third"));
+                assertNull(context.getRoute("second"));
+                assertTrue(context.getRouteController().getRouteStatus("third").isStarted());
+                assertTrue(
+                        context.getRouteController().getRouteStatus("unrelated").isStarted());
+                assertEquals(Set.of("first", "third", "unrelated"), routeIds(context));
+            }
+        }
+    }
+
+    @Test
+    void changedPropertiesReloadTheRoutes() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Path published = Files.writeString(source.resolve("routes.camel.yaml"), routes("first"));
+        Path publishedProperties = Files.writeString(source.resolve("service.properties"), "greeting=hello");
+        Path loaded = Files.copy(published, dataDir.resolve("routes.camel.yaml"));
+        Path loadedProperties = Files.copy(publishedProperties, dataDir.resolve("service.properties"));
+
+        try (CamelContext context = new DefaultCamelContext()) {
+            WanakuRoutesLoader loader = new WanakuRoutesLoader();
+            loader.loadRoute(context, loaded.toUri().toString());
+            context.start();
+
+            RouteReloader reloader = RouteReloader.newBuilder()
+                    .context(context)
+                    .routesLoader(loader)
+                    .downloader(new FileDownloader(dataDir))
+                    .routesRef(ResourceRefs.newRoutesRef(published.toUri().toString()))
+                    .propertiesRef(new ResourceRefs<>(ResourceType.PROPERTIES_REF, publishedProperties.toUri()))
+                    .build();
+            reloader.start(loaded, loadedProperties);
+
+            try (reloader) {
+                assertFalse(reloader.poll());
+
+                Files.writeString(publishedProperties, "greeting=hi");
+                assertTrue(reloader.poll());
+
+                assertEquals("hi", context.resolvePropertyPlaceholders("{{greeting}}"));
+                assertFalse(reloader.poll());
+            }
+        }
+    }
+
+    @Test
+    void brokenRoutesKeepTheRunningOnes() throws Exception {
+        Path routes = Files.writeString(tempDir.resolve("routes.camel.yaml"), routes("first"));
+        String path = routes.toUri().toString();
+
+        try (CamelContext context = new DefaultCamelContext()) {
+            WanakuRoutesLoader loader = new WanakuRoutesLoader();
+            loader.loadRoute(context, path);
+            context.start();
+
+            Files.writeString(routes, "- route: [");
+            assertThrows(RouteLoadingException.class, () -> loader.reloadRoute(context, path));
+
+            assertEquals(Set.of("first"), routeIds(context));
+            assertTrue(context.getRouteController().getRouteStatus("first").isStarted());
+        }
+    }
+
+    private static Set<String> routeIds(CamelContext context) {
+        return Set.copyOf(context.getRoutes().stream().map(Route::getRouteId).toList());
+    }
+
+    private static String routes(String... ids) {
+        StringBuilder yaml = new StringBuilder();
+        for (String id : ids) {
+            yaml.append("- route:\n")
+                    .append("    id: ")
+                    .append(id)
+                    .append('\n')
+                    .append("    from:\n")
+                    .append("      uri: direct:")
+                    .append(id)
+                    .append('\n')
+                    .append("      steps:\n")
+                    .append("        - log: ")
+                    .append(id)
+                    .append('\n');
+        }
+        return yaml.toString();
+    }
+}
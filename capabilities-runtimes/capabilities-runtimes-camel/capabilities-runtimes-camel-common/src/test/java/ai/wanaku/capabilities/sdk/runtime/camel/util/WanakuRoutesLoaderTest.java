@@ -0,0 +1,99 @@
+package ai.wanaku.capabilities.sdk.runtime.camel.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Route;
+import org.apache.camel.impl.DefaultCamelContext;
+import ai.wanaku.capabilities.sdk.runtime.camel.exceptions.RouteLoadingException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WanakuRoutesLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadsRouteFilesInBatch() throws Exception {
+        Path orders = Files.createDirectories(tempDir.resolve("orders"));
+        Path billing = Files.createDirectories(tempDir.resolve("billing"));
+        Files.writeString(orders.resolve("service.properties"), "orders.greeting=hello orders");
+
+        List<String> paths = List.of(
+                Files.writeString(orders.resolve("create.camel.yaml"), route("create", "{{orders.greeting}}"))
+                        .toUri()
+                        .toString(),
+                Files.writeString(orders.resolve("cancel.camel.yaml"), route("cancel", "cancel"))
+                        .toUri()
+                        .toString(),
+                Files.writeString(billing.resolve("invoice.camel.yaml"), route("invoice", "invoice"))
+                        .toUri()
+                        .toString());
+
+        try (CamelContext context = new DefaultCamelContext()) {
+            new WanakuRoutesLoader().loadRoutes(context, paths);
+            context.start();
+
+            assertEquals(
+                    Set.of("create", "cancel", "invoice"),
+                    Set.copyOf(
+                            context.getRoutes().stream().map(Route::getRouteId).toList()));
+            assertEquals("hello orders", context.resolvePropertyPlaceholders("{{orders.greeting}}"));
+        }
+    }
+
+    @Test
+    void assignsRoutesToTheSystemGroup() throws Exception {
+        String orders = Files.writeString(tempDir.resolve("orders.camel.yaml"), route("orders", "orders"))
+                .toUri()
+                .toString();
+        String billing = Files.writeString(tempDir.resolve("billing.camel.yaml"), route("billing", "billing"))
+                .toUri()
+                .toString();
+
+        try (CamelContext context = new DefaultCamelContext()) {
+            WanakuRoutesLoader loader = new WanakuRoutesLoader();
+            loader.loadRoutes(context, List.of(orders), "orders-system");
+            loader.loadRoutes(context, List.of(billing), "billing-system");
+            context.start();
+
+            assertEquals("orders-system", context.getRoute("orders").getGroup());
+            assertEquals("billing-system", context.getRoute("billing").getGroup());
+
+            loader.reloadRoute(context, orders, "orders-system");
+            assertEquals("orders-system", context.getRoute("orders").getGroup());
+        }
+    }
+
+    @Test
+    void reportsTheFileThatCannotBeParsed() throws Exception {
+        String valid = Files.writeString(tempDir.resolve("valid.camel.yaml"), route("valid", "valid"))
+                .toUri()
+                .toString();
+        String invalid = Files.writeString(tempDir.resolve("invalid.camel.yaml"), "- route: [")
+                .toUri()
+                .toString();
+
+        try (CamelContext context = new DefaultCamelContext()) {
+            RouteLoadingException e = assertThrows(RouteLoadingException.class, () -> new WanakuRoutesLoader()
+                    .loadRoutes(context, List.of(valid, invalid)));
+            assertTrue(e.getMessage().contains("invalid.camel.yaml"));
+        }
+    }
+
+    private static String route(String id, String message) {
+        return "- route:\n"
+                + "    id: " + id + "\n"
+                + "    from:\n"
+                + "      uri: direct:" + id + "\n"
+                + "      steps:\n"
+                + "        - log: \"" + message + "\"\n";
+    }
+}
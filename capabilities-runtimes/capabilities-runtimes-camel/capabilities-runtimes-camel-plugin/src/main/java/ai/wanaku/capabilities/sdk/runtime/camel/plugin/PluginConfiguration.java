@@ -2,9 +2,12 @@ package ai.wanaku.capabilities.sdk.runtime.camel.plugin;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Locale;
 import java.util.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.common.security.AuthInitMode;
 
 /**
  * Configuration loader for the Camel Integration Plugin.
@@ -14,6 +17,8 @@ import org.slf4j.LoggerFactory;
 public class PluginConfiguration {
     private static final Logger LOG = LoggerFactory.getLogger(PluginConfiguration.class);
     private static final String PROPERTIES_FILE = "camel-integration-capability.properties";
+    private static final String TOKEN_CACHE_FILE = "token-cache.properties";
+    private static final String CDS_DIR = "cds";
 
     private String registrationUrl;
     private String registrationAnnounceAddress = "auto";
@@ -23,10 +28,18 @@ public class PluginConfiguration {
     private String tokenEndpoint;
     private String clientId;
     private String clientSecret;
+    private boolean tokenCachePersist = false;
+    private AuthInitMode authInitMode = AuthInitMode.EAGER;
     private String dependenciesRef;
     private String repositoriesList;
     private String dataDir = "/tmp";
     private String initFrom;
+    private int initDepth = 0;
+    private String initRef;
+    private String initPaths;
+    private boolean cdsEnabled = false;
+    private String snapshotFile;
+    private boolean snapshotBoot = false;
     private int retries = 12;
     private int retryWaitSeconds = 5;
     private long initialDelay = 5;
@@ -65,10 +78,20 @@ public class PluginConfiguration {
         config.tokenEndpoint = getConfigValue(props, "token.endpoint", "TOKEN_ENDPOINT", null);
         config.clientId = getConfigValue(props, "client.id", "CLIENT_ID", null);
         config.clientSecret = getConfigValue(props, "client.secret", "CLIENT_SECRET", null);
+        config.tokenCachePersist =
+                Boolean.parseBoolean(getConfigValue(props, "token.cache.persist", "TOKEN_CACHE_PERSIST", "false"));
+        config.authInitMode = AuthInitMode.valueOf(getConfigValue(props, "auth.init.mode", "AUTH_INIT_MODE", "eager")
+                .toUpperCase(Locale.ROOT));
         config.dependenciesRef = getConfigValue(props, "dependencies", "DEPENDENCIES", null);
         config.repositoriesList = getConfigValue(props, "repositories", "REPOSITORIES", null);
         config.dataDir = getConfigValue(props, "data.dir", "DATA_DIR", "/tmp");
         config.initFrom = getConfigValue(props, "init.from", "INIT_FROM", null);
+        config.initDepth = Integer.parseInt(getConfigValue(props, "init.depth", "INIT_DEPTH", "0"));
+        config.initRef = getConfigValue(props, "init.ref", "INIT_REF", null);
+        config.initPaths = getConfigValue(props, "init.paths", "INIT_PATHS", null);
+        config.cdsEnabled = Boolean.parseBoolean(getConfigValue(props, "cds.enabled", "CDS_ENABLED", "false"));
+        config.snapshotFile = getConfigValue(props, "snapshot.file", "SNAPSHOT_FILE", null);
+        config.snapshotBoot = Boolean.parseBoolean(getConfigValue(props, "snapshot.boot", "SNAPSHOT_BOOT", "false"));
         config.retries = Integer.parseInt(getConfigValue(props, "retries", "RETRIES", "12"));
         config.retryWaitSeconds =
                 Integer.parseInt(getConfigValue(props, "retry.wait.seconds", "RETRY_WAIT_SECONDS", "5"));
@@ -149,6 +172,29 @@ public class PluginConfiguration {
         return clientSecret;
     }
 
+    public boolean isTokenCachePersist() {
+        return tokenCachePersist;
+    }
+
+    /**
+     * Returns the file used to persist access tokens across restarts.
+     *
+     * @return the token cache file inside the data directory, or {@code null} if persistence is disabled
+     */
+    public Path getTokenCacheFile() {
+        return tokenCachePersist ? Path.of(dataDir, TOKEN_CACHE_FILE) : null;
+    }
+
+    /**
+     * Returns when the initial access token is obtained: while the services client is created, on the
+     * first authenticated request, or in the background.
+     *
+     * @return the authentication initialization mode
+     */
+    public AuthInitMode getAuthInitMode() {
+        return authInitMode;
+    }
+
     public String getDependenciesRef() {
         return dependenciesRef;
     }
@@ -165,6 +211,67 @@ public class PluginConfiguration {
         return initFrom;
     }
 
+    /**
+     * Returns the number of commits fetched from the {@code init.from} repository.
+     *
+     * @return the clone depth, or {@code 0} for the full history
+     */
+    public int getInitDepth() {
+        return initDepth;
+    }
+
+    /**
+     * Returns the branch, tag or ref checked out from the {@code init.from} repository.
+     *
+     * @return the ref, or {@code null} for the remote HEAD
+     */
+    public String getInitRef() {
+        return initRef;
+    }
+
+    /**
+     * Returns the paths checked out from the {@code init.from} repository, as a comma-separated list.
+     *
+     * @return the paths, or {@code null} to check out the whole repository
+     */
+    public String getInitPaths() {
+        return initPaths;
+    }
+
+    public boolean isCdsEnabled() {
+        return cdsEnabled;
+    }
+
+    /**
+     * Returns the directory where the JVM options for the AppCDS archive of the resolved classpath are
+     * written. Launchers pass the {@code jvm.args} file found there to the JVM on later starts.
+     *
+     * @return the CDS directory inside the data directory, or {@code null} if CDS is disabled
+     */
+    public Path getCdsDirectory() {
+        return cdsEnabled ? Path.of(dataDir, CDS_DIR) : null;
+    }
+
+    /**
+     * Returns the startup snapshot archive, exported once the capability started and, when
+     * {@link #isSnapshotBoot()} is set, restored on the next start.
+     *
+     * @return the snapshot archive, or {@code null} if snapshots are disabled
+     */
+    public Path getSnapshotFile() {
+        return snapshotFile == null ? null : Path.of(snapshotFile);
+    }
+
+    /**
+     * Returns whether the capability boots from its startup snapshot, when one exists, and refreshes its
+     * resources from the router in the background instead of waiting for them.
+     *
+     * @return {@code true} to boot from the snapshot
+     */
+    public boolean isSnapshotBoot() {
+        return snapshotBoot && snapshotFile != null;
+    }
+
     public int getRetries() {
         return retries;
     }
@@ -1,7 +1,10 @@
 package ai.wanaku.capabilities.sdk.runtime.camel.plugin;
 
+import ai.wanaku.capabilities.sdk.common.security.AuthInitMode;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -11,6 +14,9 @@ class PluginConfigurationTest {
     void load_defaults() {
         PluginConfiguration config = PluginConfiguration.load();
         assertEquals("camel", config.getServiceName());
+        assertEquals(0, config.getInitDepth());
+        assertFalse(config.isSnapshotBoot());
+        assertEquals(AuthInitMode.EAGER, config.getAuthInitMode());
     }
 
     @Test
@@ -24,6 +30,10 @@ class PluginConfigurationTest {
         assertNull(config.getDependenciesRef());
         assertNull(config.getRepositoriesList());
         assertNull(config.getInitFrom());
+        assertNull(config.getInitRef());
+        assertNull(config.getInitPaths());
+        assertNull(config.getCdsDirectory());
+        assertNull(config.getSnapshotFile());
     }
 
     @Test
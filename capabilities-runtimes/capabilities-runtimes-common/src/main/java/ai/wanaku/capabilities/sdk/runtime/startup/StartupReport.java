@@ -0,0 +1,132 @@
+package ai.wanaku.capabilities.sdk.runtime.startup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import ai.wanaku.capabilities.sdk.api.exceptions.WanakuException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * The phases of the startup of a capability, as recorded by {@link StartupTimeline}.
+ *
+ * @param startedAt the instant the startup began
+ * @param total     the time from the start until the startup finished
+ * @param phases    the recorded phases, in the order they started
+ */
+public record StartupReport(Instant startedAt, Duration total, List<PhaseSummary> phases) {
+
+    /**
+     * The occurrences of a phase.
+     *
+     * @param name  the name of the phase
+     * @param count how many times the phase was recorded
+     * @param start the offset at which the first occurrence started
+     * @param end   the offset at which the last occurrence ended
+     * @param busy  the sum of the durations of all occurrences, which exceeds the elapsed time from
+     *              {@code start} to {@code end} when occurrences ran concurrently
+     */
+    public record PhaseSummary(String name, int count, Duration start, Duration end, Duration busy) {
+
+        /**
+         * Returns the time from the start of the first occurrence to the end of the last one.
+         *
+         * @return the elapsed time of the phase
+         */
+        public Duration elapsed() {
+            return end.minus(start);
+        }
+    }
+
+    static StartupReport of(Instant startedAt, long total, List<StartupTimeline.Span> spans) {
+        Map<String, List<StartupTimeline.Span>> byName = new LinkedHashMap<>();
+        for (StartupTimeline.Span span : spans) {
+            byName.computeIfAbsent(span.name(), k -> new ArrayList<>()).add(span);
+        }
+
+        List<PhaseSummary> phases = new ArrayList<>();
+        byName.forEach((name, occurrences) -> {
+            long start = Long.MAX_VALUE;
+            long end = Long.MIN_VALUE;
+            long busy = 0;
+            for (StartupTimeline.Span span : occurrences) {
+                start = Math.min(start, span.start());
+                end = Math.max(end, span.end());
+                busy += span.end() - span.start();
+            }
+            phases.add(new PhaseSummary(
+                    name, occurrences.size(), Duration.ofNanos(start), Duration.ofNanos(end), Duration.ofNanos(busy)));
+        });
+        phases.sort(Comparator.comparing(PhaseSummary::start));
+
+        return new StartupReport(startedAt, Duration.ofNanos(total), List.copyOf(phases));
+    }
+
+    /**
+     * Returns the summary of the given phase.
+     *
+     * @param name the name of the phase
+     * @return the phase summary, or {@code null} if the phase was not recorded
+     */
+    public PhaseSummary phase(String name) {
+        return phases.stream().filter(p -> p.name().equals(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the report as JSON, with all durations and offsets in milliseconds.
+     *
+     * @return the JSON report
+     */
+    public String toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("startedAt", startedAt.toString());
+        json.put("totalMs", total.toMillis());
+
+        List<Map<String, Object>> phaseList = new ArrayList<>();
+        for (PhaseSummary phase : phases) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", phase.name());
+            entry.put("count", phase.count());
+            entry.put("startMs", phase.start().toMillis());
+            entry.put("endMs", phase.end().toMillis());
+            entry.put("elapsedMs", phase.elapsed().toMillis());
+            entry.put("busyMs", phase.busy().toMillis());
+            phaseList.add(entry);
+        }
+        json.put("phases", phaseList);
+
+        try {
+            return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new WanakuException("Unable to write the startup report", e);
+        }
+    }
+
+    /**
+     * Returns a human-readable summary of the report, with one line per phase.
+     *
+     * @return the summary
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Startup completed in %d ms", total.toMillis()));
+        for (PhaseSummary phase : phases) {
+            sb.append(String.format(
+                    "%n  %-20s %8d ms  at %6d ms -> %6d ms",
+                    phase.name(),
+                    phase.elapsed().toMillis(),
+                    phase.start().toMillis(),
+                    phase.end().toMillis()));
+            if (phase.count() > 1) {
+                sb.append(String.format(
+                        "  (%d times, %d ms busy)", phase.count(), phase.busy().toMillis()));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,198 @@
+package ai.wanaku.capabilities.sdk.runtime.startup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how long each phase of the startup of a capability takes, such as cloning its Git repository,
+ * obtaining its access token, downloading its resources or loading its routes.
+ * <p>
+ * Components wrap their startup work in a {@link Phase}, obtained from {@link #begin(String)} and closed when
+ * the work completes. Phases may run concurrently and the same phase may be recorded several times, for
+ * instance once per downloaded resource. Instants without a duration, such as the registration with the
+ * router, are recorded with {@link #mark(String)}. Offsets are measured from the start of the JVM.
+ * <p>
+ * When the capability is ready, the runtime calls {@link #finish()}, which logs a summary of the phases and
+ * returns a {@link StartupReport} that can also be written as JSON. Phases recorded after that, for instance
+ * when routes are reloaded, are not part of the report.
+ */
+public final class StartupTimeline {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTimeline.class);
+    private static final StartupTimeline GLOBAL = new StartupTimeline(jvmStartTime());
+
+    /** Cloning or updating the Git repository the capability is initialized from. */
+    public static final String GIT_INIT = "git-init";
+    /** Obtaining the initial OAuth2 access token. */
+    public static final String OAUTH_TOKEN = "oauth-token";
+    /** The registration of the capability with the router. */
+    public static final String REGISTRATION = "registration";
+    /** Downloading a resource, such as routes, rules or dependencies. */
+    public static final String RESOURCE_DOWNLOAD = "resource-download";
+    /** Downloading a service catalog. */
+    public static final String CATALOG_DOWNLOAD = "catalog-download";
+    /** Extracting the files of a system from a service catalog. */
+    public static final String CATALOG_EXTRACTION = "catalog-extraction";
+    /** Resolving Maven dependencies. */
+    public static final String MAVEN_RESOLUTION = "maven-resolution";
+    /** Restoring the resources and dependencies of the capability from a startup snapshot. */
+    public static final String SNAPSHOT_RESTORE = "snapshot-restore";
+    /** Parsing and loading routes into the Camel context. */
+    public static final String ROUTE_LOADING = "route-loading";
+
+    private final Instant startedAt;
+    private final long origin;
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+    private volatile StartupReport report;
+
+    record Span(String name, long start, long end) {}
+
+    /**
+     * Creates a timeline whose offsets are measured from the given instant.
+     *
+     * @param startedAt the instant the startup began
+     */
+    StartupTimeline(Instant startedAt) {
+        this.startedAt = startedAt;
+        this.origin =
+                System.nanoTime() - Duration.between(startedAt, Instant.now()).toNanos();
+    }
+
+    /**
+     * Returns the timeline shared by all components in this process.
+     *
+     * @return the global startup timeline
+     */
+    public static StartupTimeline global() {
+        return GLOBAL;
+    }
+
+    /**
+     * A phase in progress, recorded when it is closed.
+     */
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final long start;
+        private boolean closed;
+
+        private Phase(String name, long start) {
+            this.name = name;
+            this.start = start;
+        }
+
+        /**
+         * Ends the phase. Closing a phase more than once has no effect.
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            record(name, start, System.nanoTime());
+        }
+    }
+
+    /**
+     * Starts a phase, to be closed when its work completes.
+     *
+     * @param name the name of the phase, for instance {@link #RESOURCE_DOWNLOAD}
+     * @return the phase in progress
+     */
+    public Phase begin(String name) {
+        return new Phase(name, System.nanoTime());
+    }
+
+    /**
+     * Records an instant of the startup, such as the registration with the router.
+     *
+     * @param name the name of the event, for instance {@link #REGISTRATION}
+     */
+    public void mark(String name) {
+        long now = System.nanoTime();
+        record(name, now, now);
+    }
+
+    private void record(String name, long start, long end) {
+        if (report == null) {
+            spans.add(new Span(name, start - origin, end - origin));
+        }
+    }
+
+    /**
+     * Returns whether the startup finished.
+     *
+     * @return {@code true} once {@link #finish()} was called
+     */
+    public boolean isFinished() {
+        return report != null;
+    }
+
+    /**
+     * Marks the end of the startup, and logs a summary of the phases recorded so far. Only the first call
+     * builds the report: later calls return the same one.
+     *
+     * @return the startup report
+     */
+    public StartupReport finish() {
+        StartupReport finished;
+        synchronized (this) {
+            if (report != null) {
+                return report;
+            }
+            finished = StartupReport.of(startedAt, System.nanoTime() - origin, List.copyOf(new ArrayList<>(spans)));
+            report = finished;
+        }
+
+        LOG.info("{}", finished.summary());
+        return finished;
+    }
+
+    /**
+     * Marks the end of the startup as {@link #finish()} does, and writes the report as JSON to the given file.
+     * A report that cannot be written is logged and otherwise ignored.
+     *
+     * @param jsonFile the file to write the report to
+     * @return the startup report
+     */
+    public StartupReport finish(Path jsonFile) {
+        StartupReport finished = finish();
+        try {
+            Path dir = jsonFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, jsonFile.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(tmp, finished.toJson(), StandardCharsets.UTF_8);
+                Files.move(tmp, jsonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            LOG.info("Startup report written to {}", jsonFile);
+        } catch (IOException e) {
+            LOG.warn("Unable to write the startup report to {}: {}", jsonFile, e.getMessage());
+        }
+        return finished;
+    }
+
+    private static Instant jvmStartTime() {
+        try {
+            return Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+        } catch (RuntimeException | LinkageError e) {
+            // java.management may not be available on trimmed runtimes
+            return Instant.now();
+        }
+    }
+}
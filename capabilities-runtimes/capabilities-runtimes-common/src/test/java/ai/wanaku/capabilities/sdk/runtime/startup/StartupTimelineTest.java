@@ -0,0 +1,60 @@
+package ai.wanaku.capabilities.sdk.runtime.startup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupTimelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportsEachPhase() throws Exception {
+        StartupTimeline timeline = new StartupTimeline(Instant.now());
+
+        try (StartupTimeline.Phase ignored = timeline.begin(StartupTimeline.GIT_INIT)) {
+            Thread.sleep(20);
+        }
+        timeline.mark(StartupTimeline.REGISTRATION);
+        StartupTimeline.Phase first = timeline.begin(StartupTimeline.RESOURCE_DOWNLOAD);
+        StartupTimeline.Phase second = timeline.begin(StartupTimeline.RESOURCE_DOWNLOAD);
+        Thread.sleep(20);
+        first.close();
+        second.close();
+        second.close();
+        StartupTimeline.Phase unfinished = timeline.begin(StartupTimeline.ROUTE_LOADING);
+
+        Path json = tempDir.resolve("startup.json");
+        StartupReport report = timeline.finish(json);
+        unfinished.close();
+
+        assertSame(report, timeline.finish());
+        assertEquals(3, report.phases().size());
+        assertEquals(StartupTimeline.GIT_INIT, report.phases().get(0).name());
+        assertTrue(report.phase(StartupTimeline.GIT_INIT).elapsed().toMillis() >= 20);
+        assertEquals(0, report.phase(StartupTimeline.REGISTRATION).elapsed().toNanos());
+        assertEquals(2, report.phase(StartupTimeline.RESOURCE_DOWNLOAD).count());
+        assertTrue(report.phase(StartupTimeline.RESOURCE_DOWNLOAD)
+                        .busy()
+                        .compareTo(
+                                report.phase(StartupTimeline.RESOURCE_DOWNLOAD).elapsed())
+                > 0);
+        assertNull(report.phase(StartupTimeline.ROUTE_LOADING));
+        assertTrue(report.summary().contains(StartupTimeline.RESOURCE_DOWNLOAD));
+
+        JsonNode written = new ObjectMapper().readTree(Files.readString(json));
+        assertEquals(report.total().toMillis(), written.get("totalMs").asLong());
+        assertEquals(3, written.get("phases").size());
+        assertEquals(2, written.get("phases").get(2).get("count").asInt());
+    }
+}
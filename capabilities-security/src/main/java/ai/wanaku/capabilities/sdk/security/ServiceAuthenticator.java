@@ -5,9 +5,16 @@ import java.net.URI;
 import java.net.URL;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ai.wanaku.capabilities.sdk.common.security.AuthInitMode;
 import ai.wanaku.capabilities.sdk.common.security.SecurityServiceConfig;
+import ai.wanaku.capabilities.sdk.runtime.startup.StartupTimeline;
 import ai.wanaku.capabilities.sdk.security.exceptions.ServiceAuthException;
 import com.nimbusds.oauth2.sdk.AccessTokenResponse;
 import com.nimbusds.oauth2.sdk.AuthorizationGrant;
@@ -33,13 +40,35 @@ import net.minidev.json.JSONObject;
 /**
  * Handles OAuth2 authentication with the Wanaku.
  * Manages access tokens, refresh tokens, and automatic token renewal.
+ * <p>
+ * Tokens are kept in the process-wide {@link TokenCache}, so authenticators configured with the same
+ * token endpoint and client ID share a single token. When the configuration provides a token cache
+ * file, unexpired tokens are persisted to it and reused after a restart.
+ * <p>
+ * Depending on the {@link AuthInitMode}, the initial token is obtained while the authenticator is
+ * created, on the first call to {@link #currentValidAccessToken()}, or in the background. In the
+ * latter case, the first caller waits up to {@link #INITIALIZATION_TIMEOUT} for the background
+ * initialization to complete and, if it failed or is still running, retries it on the calling thread.
+ * Requests to the authorization server time out after {@link #REQUEST_TIMEOUT}.
  */
 public class ServiceAuthenticator {
     private static final Logger LOG = LoggerFactory.getLogger(ServiceAuthenticator.class);
+
+    /**
+     * The connect and read timeout of each request to the authorization server.
+     */
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * How long the first caller waits for the background initialization before retrying it itself.
+     */
+    public static final Duration INITIALIZATION_TIMEOUT = REQUEST_TIMEOUT.multipliedBy(3);
+
     private final SecurityServiceConfig config;
-    private AccessToken accessToken;
-    private RefreshToken refreshToken;
-    private Instant creationTime;
+    private final TokenCache tokenCache;
+    private final TokenCache.Key cacheKey;
+    private final CompletableFuture<Void> initialization;
+    private volatile TokenCache.CachedToken token;
 
     /**
      * Creates a new authenticator and obtains an initial access token.
@@ -47,30 +76,89 @@ public class ServiceAuthenticator {
      * @param config The security service configuration containing OAuth2 credentials.
      */
     public ServiceAuthenticator(SecurityServiceConfig config) {
+        this(config, AuthInitMode.EAGER);
+    }
+
+    /**
+     * Creates a new authenticator that obtains the initial access token according to the given mode.
+     *
+     * @param config The security service configuration containing OAuth2 credentials.
+     * @param mode When the initial access token should be obtained.
+     */
+    public ServiceAuthenticator(SecurityServiceConfig config, AuthInitMode mode) {
         this.config = config;
+        this.tokenCache = TokenCache.shared();
+        this.cacheKey = new TokenCache.Key(config.getTokenEndpoint(), config.getClientId());
 
-        renewToken(config);
+        if (config.getTokenCacheFile() != null) {
+            tokenCache.persistTo(cacheKey, config.getTokenCacheFile());
+        }
 
-        LOG.info("Received token with a lifetime of {} seconds", accessToken.getLifetime());
+        this.initialization = switch (mode) {
+            case EAGER -> {
+                initialize();
+                yield CompletableFuture.completedFuture(null);
+            }
+            case LAZY -> CompletableFuture.completedFuture(null);
+            case ASYNC -> CompletableFuture.runAsync(this::initialize, ServiceAuthenticator::warmUp);
+        };
+    }
+
+    private static void warmUp(Runnable task) {
+        Thread.ofPlatform().name("wanaku-auth-warmup").daemon().start(task);
+    }
+
+    /**
+     * Obtains the initial access token, reusing a cached one if it is still valid.
+     */
+    private void initialize() {
+        try (StartupTimeline.Phase ignored = StartupTimeline.global().begin(StartupTimeline.OAUTH_TOKEN)) {
+            token = tokenCache.getOrRenew(cacheKey, this::renewToken);
+        }
+
+        LOG.debug("Using token valid for the next {} seconds", token.remainingSeconds());
     }
 
     /**
-     * Renews the access token using either client credentials or refresh token grant.
+     * Returns a future that completes when the background initialization finishes. For authenticators
+     * that are not initialized in the background, the returned future is already complete.
      *
-     * @param config The security service configuration.
+     * @return A future tracking the initialization of the authenticator.
      */
-    private void renewToken(SecurityServiceConfig config) {
-        final TokenRequest request = createTokenRequest(config);
-        requestToken(request);
+    public CompletableFuture<Void> whenInitialized() {
+        return initialization;
+    }
+
+    /**
+     * Renews the access token using either client credentials or refresh token grant. If the refresh
+     * token is rejected, falls back to client credentials.
+     *
+     * @param previous The expired token, or {@code null} if there is none.
+     * @return The new token.
+     */
+    private TokenCache.CachedToken renewToken(TokenCache.CachedToken previous) {
+        if (previous == null || previous.refreshToken() == null) {
+            return requestToken(createTokenRequest(config, null));
+        }
+
+        LOG.info("The token is about to expire. Renewing token to prevent that from happening ...");
+        try {
+            return requestToken(createTokenRequest(config, new RefreshToken(previous.refreshToken())));
+        } catch (ServiceAuthException e) {
+            LOG.warn("Unable to renew the token using the refresh token: {}", e.getMessage());
+            tokenCache.invalidate(cacheKey);
+            return requestToken(createTokenRequest(config, null));
+        }
     }
 
     /**
      * Creates an OAuth2 token request using appropriate grant type.
      *
      * @param config The security service configuration.
+     * @param refreshToken The refresh token to use, or {@code null} to use client credentials.
      * @return The configured token request.
      */
-    private TokenRequest createTokenRequest(SecurityServiceConfig config) {
+    private static TokenRequest createTokenRequest(SecurityServiceConfig config, RefreshToken refreshToken) {
         final ClientAuthentication clientAuth = getClientAuthentication(config);
 
         final URI tokenEndpoint = resolveTokenEndpointUri(config);
@@ -101,7 +189,7 @@ public class ServiceAuthenticator {
         try {
             final URL openIdConfigUrl = OIDCProviderMetadata.resolveURL(issuer);
 
-            HTTPRequest httpRequest = new HTTPRequest(HTTPRequest.Method.GET, openIdConfigUrl);
+            HTTPRequest httpRequest = withTimeouts(new HTTPRequest(HTTPRequest.Method.GET, openIdConfigUrl));
             HTTPResponse httpResponse = httpRequest.send();
 
             if (httpResponse.getStatusCode() != 200) {
@@ -130,7 +218,8 @@ public class ServiceAuthenticator {
         Issuer issuer = new Issuer(resolveIssuer(config));
 
         try {
-            final OIDCProviderMetadata resolvedOp = OIDCProviderMetadata.resolve(issuer);
+            final OIDCProviderMetadata resolvedOp = OIDCProviderMetadata.resolve(
+                    issuer, (int) REQUEST_TIMEOUT.toMillis(), (int) REQUEST_TIMEOUT.toMillis());
 
             return resolvedOp.getTokenEndpointURI();
         } catch (GeneralException e) {
@@ -140,6 +229,12 @@ public class ServiceAuthenticator {
         }
     }
 
+    private static HTTPRequest withTimeouts(HTTPRequest request) {
+        request.setConnectTimeout((int) REQUEST_TIMEOUT.toMillis());
+        request.setReadTimeout((int) REQUEST_TIMEOUT.toMillis());
+        return request;
+    }
+
     /**
      * Creates client authentication for OAuth2 requests.
      *
@@ -153,15 +248,16 @@ public class ServiceAuthenticator {
     }
 
     /**
-     * Executes the token request and updates internal token state.
+     * Executes the token request.
      *
      * @param request The OAuth2 token request to execute.
+     * @return The obtained token.
      * @throws ServiceAuthException If authentication fails.
      */
-    private void requestToken(TokenRequest request) {
+    private static TokenCache.CachedToken requestToken(TokenRequest request) {
         TokenResponse response = null;
         try {
-            response = TokenResponse.parse(request.toHTTPRequest().send());
+            response = TokenResponse.parse(withTimeouts(request.toHTTPRequest()).send());
         } catch (IOException | ParseException e) {
             throw new ServiceAuthException(e);
         }
@@ -178,26 +274,64 @@ public class ServiceAuthenticator {
         AccessTokenResponse successResponse = response.toSuccessResponse();
 
         // Get the access token
-        accessToken = successResponse.getTokens().getAccessToken();
-        refreshToken = successResponse.getTokens().getRefreshToken();
-        creationTime = Instant.now();
+        AccessToken accessToken = successResponse.getTokens().getAccessToken();
+        RefreshToken refreshToken = successResponse.getTokens().getRefreshToken();
+
+        LOG.info("Received token with a lifetime of {} seconds", accessToken.getLifetime());
+
+        return new TokenCache.CachedToken(
+                accessToken.getValue(),
+                refreshToken != null ? refreshToken.getValue() : null,
+                Instant.now().plusSeconds(accessToken.getLifetime()));
     }
 
     /**
-     * Returns a valid access token, renewing it if necessary.
+     * Returns a valid access token, renewing it if necessary. If the authenticator is still being
+     * initialized in the background, this waits for the initialization to complete.
      *
      * @return A valid access token value.
+     * @throws ServiceAuthException If the token cannot be obtained.
      */
     public String currentValidAccessToken() {
-        final long elapsedSeconds =
-                Duration.between(creationTime, Instant.now()).getSeconds();
+        awaitInitialization();
+
+        TokenCache.CachedToken current = token;
+        if (current == null || !current.isValid()) {
+            current = tokenCache.getOrRenew(cacheKey, this::renewToken);
+            token = current;
+        }
+
+        return current.accessToken();
+    }
 
-        if (elapsedSeconds >= (accessToken.getLifetime() - 30)) {
-            LOG.info("The token is about to expire. Renewing token to prevent that from happening ...");
-            renewToken(config);
+    /**
+     * Waits up to {@link #INITIALIZATION_TIMEOUT} for the background initialization, if any. Failures
+     * and timeouts are not propagated: the caller retries the initialization on its own thread.
+     */
+    private void awaitInitialization() {
+        try {
+            initialization.get(INITIALIZATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            LOG.warn("Background authentication failed: {}. Retrying on the current thread", cause.getMessage());
+        } catch (TimeoutException e) {
+            LOG.warn(
+                    "Background authentication did not complete within {} seconds. Retrying on the current thread",
+                    INITIALIZATION_TIMEOUT.toSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceAuthException("Interrupted while waiting for the background authentication", e);
         }
+    }
 
-        return accessToken.getValue();
+    /**
+     * Discards the current access token, for instance because the server rejected it, so that the next
+     * call to {@link #currentValidAccessToken()} obtains a new one. The token is also removed from the
+     * shared {@link TokenCache}, and from its file if it is persisted.
+     */
+    public void invalidateToken() {
+        token = null;
+        tokenCache.invalidate(cacheKey);
     }
 
     /**
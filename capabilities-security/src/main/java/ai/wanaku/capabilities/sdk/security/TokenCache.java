@@ -0,0 +1,262 @@
+package ai.wanaku.capabilities.sdk.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process-wide cache of OAuth2 tokens, keyed by token endpoint and client ID.
+ * <p>
+ * All {@link ServiceAuthenticator} instances share the same cache, so clients using the same
+ * credentials obtain and renew a single token instead of one each. Optionally, unexpired tokens can
+ * be persisted to a file readable only by the owner, so that a restarted process can reuse them
+ * without contacting the authorization server.
+ */
+public final class TokenCache {
+    private static final Logger LOG = LoggerFactory.getLogger(TokenCache.class);
+    private static final TokenCache SHARED = new TokenCache();
+
+    /**
+     * Tokens expiring within this margin are considered expired, so they are renewed before use.
+     */
+    static final Duration EXPIRY_MARGIN = Duration.ofSeconds(30);
+
+    private final Map<Key, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<Key, Object> locks = new ConcurrentHashMap<>();
+    private final Map<Key, Path> persistentKeys = new ConcurrentHashMap<>();
+    private final Set<Path> loadedFiles = ConcurrentHashMap.newKeySet();
+
+    TokenCache() {}
+
+    /**
+     * Returns the cache shared by all authenticators in this process.
+     *
+     * @return The shared token cache.
+     */
+    public static TokenCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Identifies the tokens issued to a client by a token endpoint.
+     *
+     * @param tokenEndpoint The configured token endpoint.
+     * @param clientId The OAuth2 client ID.
+     */
+    public record Key(String tokenEndpoint, String clientId) {
+        public Key {
+            Objects.requireNonNull(tokenEndpoint, "tokenEndpoint must not be null");
+            Objects.requireNonNull(clientId, "clientId must not be null");
+        }
+    }
+
+    /**
+     * A cached token.
+     *
+     * @param accessToken The access token value.
+     * @param refreshToken The refresh token value, or {@code null} if none was issued.
+     * @param expiresAt When the access token expires.
+     */
+    public record CachedToken(String accessToken, String refreshToken, Instant expiresAt) {
+        public CachedToken {
+            Objects.requireNonNull(accessToken, "accessToken must not be null");
+            Objects.requireNonNull(expiresAt, "expiresAt must not be null");
+        }
+
+        /**
+         * Returns whether the token can still be used, allowing for the renewal margin.
+         *
+         * @return {@code true} if the token does not expire within the renewal margin.
+         */
+        public boolean isValid() {
+            return Instant.now().isBefore(expiresAt.minus(EXPIRY_MARGIN));
+        }
+
+        /**
+         * Returns the number of seconds until the token expires.
+         *
+         * @return The remaining lifetime in seconds.
+         */
+        public long remainingSeconds() {
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).getSeconds());
+        }
+    }
+
+    /**
+     * Returns a valid token for the given key, renewing it if there is none or it is about to expire.
+     * Renewals are serialized per key, so concurrent callers sharing credentials trigger a single request.
+     *
+     * @param key The token key.
+     * @param renewal Obtains a new token. It receives the current, expired token (or {@code null}),
+     *        so it can use its refresh token.
+     * @return A valid token.
+     */
+    public CachedToken getOrRenew(Key key, UnaryOperator<CachedToken> renewal) {
+        CachedToken current = tokens.get(key);
+        if (current != null && current.isValid()) {
+            return current;
+        }
+
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            current = tokens.get(key);
+            if (current != null && current.isValid()) {
+                return current;
+            }
+
+            CachedToken renewed = renewal.apply(current);
+            tokens.put(key, renewed);
+            save(key);
+            return renewed;
+        }
+    }
+
+    /**
+     * Returns the cached token for the given key, if any, regardless of whether it is still valid.
+     *
+     * @param key The token key.
+     * @return The cached token, or {@code null}.
+     */
+    public CachedToken get(Key key) {
+        return tokens.get(key);
+    }
+
+    /**
+     * Removes the token for the given key, so the next request obtains a new one.
+     *
+     * @param key The token key.
+     */
+    public void invalidate(Key key) {
+        tokens.remove(key);
+        save(key);
+    }
+
+    /**
+     * Persists the tokens for the given key to the given file, and loads the unexpired tokens it already
+     * contains. The file is created with owner-only permissions where the file system supports them.
+     *
+     * @param key The token key.
+     * @param file The file to persist tokens to.
+     */
+    public void persistTo(Key key, Path file) {
+        Path normalized = file.toAbsolutePath().normalize();
+        persistentKeys.put(key, normalized);
+
+        if (loadedFiles.add(normalized)) {
+            load(normalized);
+        }
+    }
+
+    /**
+     * Removes all tokens from memory. Persisted files are left untouched.
+     */
+    public void clear() {
+        tokens.clear();
+    }
+
+    private void load(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            props.load(is);
+        } catch (IOException e) {
+            LOG.warn("Unable to read the token cache from {}: {}", file, e.getMessage());
+            return;
+        }
+
+        int count = Integer.parseInt(props.getProperty("tokens", "0"));
+        for (int i = 0; i < count; i++) {
+            String prefix = "token." + i + ".";
+            try {
+                Key key = new Key(props.getProperty(prefix + "endpoint"), props.getProperty(prefix + "client"));
+                CachedToken token = new CachedToken(
+                        props.getProperty(prefix + "access"),
+                        props.getProperty(prefix + "refresh"),
+                        Instant.parse(props.getProperty(prefix + "expires")));
+
+                if (token.isValid()) {
+                    tokens.putIfAbsent(key, token);
+                    LOG.debug("Loaded cached token for client {} from {}", key.clientId(), file);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Ignoring invalid entry {} in the token cache {}: {}", i, file, e.getMessage());
+            }
+        }
+    }
+
+    private void save(Key changed) {
+        Path file = persistentKeys.get(changed);
+        if (file == null) {
+            return;
+        }
+
+        synchronized (persistentKeys) {
+            Properties props = new Properties();
+            int count = 0;
+            for (Map.Entry<Key, Path> entry : persistentKeys.entrySet()) {
+                CachedToken token = tokens.get(entry.getKey());
+                if (!file.equals(entry.getValue()) || token == null || !token.isValid()) {
+                    continue;
+                }
+
+                String prefix = "token." + count + ".";
+                props.setProperty(prefix + "endpoint", entry.getKey().tokenEndpoint());
+                props.setProperty(prefix + "client", entry.getKey().clientId());
+                props.setProperty(prefix + "access", token.accessToken());
+                if (token.refreshToken() != null) {
+                    props.setProperty(prefix + "refresh", token.refreshToken());
+                }
+                props.setProperty(prefix + "expires", token.expiresAt().toString());
+                count++;
+            }
+            props.setProperty("tokens", Integer.toString(count));
+
+            try {
+                write(file, props);
+            } catch (IOException e) {
+                LOG.warn("Unable to persist the token cache to {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static void write(Path file, Properties props) throws IOException {
+        Path dir = file.getParent();
+        Files.createDirectories(dir);
+
+        Path tmp;
+        try {
+            tmp = Files.createTempFile(
+                    dir,
+                    file.getFileName().toString(),
+                    ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        }
+
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                props.store(os, "Wanaku OAuth2 token cache");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
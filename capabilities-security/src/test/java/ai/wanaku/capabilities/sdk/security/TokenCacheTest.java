@@ -0,0 +1,96 @@
+package ai.wanaku.capabilities.sdk.security;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenCacheTest {
+
+    private static final TokenCache.Key KEY = new TokenCache.Key("http://localhost/realms/wanaku", "client");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void validTokenIsReused() {
+        TokenCache cache = new TokenCache();
+        AtomicInteger renewals = new AtomicInteger();
+
+        TokenCache.CachedToken first = cache.getOrRenew(KEY, previous -> {
+            renewals.incrementAndGet();
+            return token("a", 3600);
+        });
+        TokenCache.CachedToken second = cache.getOrRenew(KEY, previous -> {
+            renewals.incrementAndGet();
+            return token("b", 3600);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, renewals.get());
+    }
+
+    @Test
+    void expiringTokenIsRenewedWithPreviousToken() {
+        TokenCache cache = new TokenCache();
+        cache.getOrRenew(KEY, previous -> token("a", 10));
+
+        TokenCache.CachedToken renewed = cache.getOrRenew(KEY, previous -> {
+            assertEquals("a", previous.accessToken());
+            return token("b", 3600);
+        });
+
+        assertEquals("b", renewed.accessToken());
+    }
+
+    @Test
+    void persistedTokensAreReloaded() throws Exception {
+        Path file = tempDir.resolve("tokens.properties");
+
+        TokenCache cache = new TokenCache();
+        cache.persistTo(KEY, file);
+        cache.getOrRenew(KEY, previous -> token("persisted", 3600));
+
+        assertTrue(Files.exists(file));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "No temporary file should be left behind");
+        }
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        }
+
+        TokenCache restarted = new TokenCache();
+        restarted.persistTo(KEY, file);
+
+        assertEquals("persisted", restarted.get(KEY).accessToken());
+        assertEquals("refresh-persisted", restarted.get(KEY).refreshToken());
+    }
+
+    @Test
+    void expiredTokensAreNotReloaded() {
+        Path file = tempDir.resolve("tokens.properties");
+
+        TokenCache cache = new TokenCache();
+        cache.persistTo(KEY, file);
+        cache.getOrRenew(KEY, previous -> token("short-lived", 5));
+
+        TokenCache restarted = new TokenCache();
+        restarted.persistTo(KEY, file);
+
+        assertNull(restarted.get(KEY));
+    }
+
+    private static TokenCache.CachedToken token(String value, long lifetimeSeconds) {
+        return new TokenCache.CachedToken(
+                value, "refresh-" + value, Instant.now().plusSeconds(lifetimeSeconds));
+    }
+}
@@ -0,0 +1,31 @@
+package ai.wanaku.capabilities.sdk.services;
+
+/**
+ * The result of a conditional data store or service catalog download with {@link ServicesHttpClient}.
+ *
+ * @param status What happened to the target file.
+ * @param etag The entity tag returned by the server, or {@code null} if it did not send one.
+ */
+public record DataStoreDownload(Status status, String etag) {
+
+    /**
+     * The outcome of a conditional download.
+     */
+    public enum Status {
+        /**
+         * The content was downloaded and written to the target file.
+         */
+        WRITTEN,
+
+        /**
+         * The server confirmed that the content matching the given entity tag is still current.
+         * The target file was not touched.
+         */
+        NOT_MODIFIED,
+
+        /**
+         * The server returned no content. The target file was not touched.
+         */
+        NO_DATA,
+    }
+}
@@ -6,12 +6,16 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -38,7 +42,9 @@ import ai.wanaku.capabilities.sdk.common.config.ServiceConfig;
 import ai.wanaku.capabilities.sdk.common.exceptions.WanakuWebException;
 import ai.wanaku.capabilities.sdk.common.serializer.Serializer;
 import ai.wanaku.capabilities.sdk.security.ServiceAuthenticator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -56,7 +62,8 @@ public class ServicesHttpClient {
     private final ServiceAuthenticator serviceAuthenticator;
 
     /**
-     * Constructs a {@code ServicesHttpClient} with the given configuration.
+     * Constructs a {@code ServicesHttpClient} with the given configuration. When authentication is
+     * enabled, the initial access token is obtained according to {@link ServiceConfig#getAuthInitMode()}.
      *
      * @param config The {@link ServiceConfig} containing base URL and serializer.
      */
@@ -65,7 +72,8 @@ public class ServicesHttpClient {
         this.baseUrl = sanitize(config);
         this.serializer = config.getSerializer();
         this.objectMapper = new ObjectMapper();
-        this.serviceAuthenticator = config.isAuthEnabled() ? new ServiceAuthenticator(config) : null;
+        this.serviceAuthenticator =
+                config.isAuthEnabled() ? new ServiceAuthenticator(config, config.getAuthInitMode()) : null;
     }
 
     /**
@@ -93,6 +101,17 @@ public class ServicesHttpClient {
         return builder;
     }
 
+    /**
+     * Discards the access token if the server rejected it, so that the next request obtains a new one.
+     *
+     * @param statusCode The HTTP status code of the response.
+     */
+    private void invalidateRejectedToken(int statusCode) {
+        if (statusCode == 401 && serviceAuthenticator != null) {
+            serviceAuthenticator.invalidateToken();
+        }
+    }
+
     /**
      * Executes a POST request to the Services API.
      *
@@ -117,6 +136,7 @@ public class ServicesHttpClient {
                     .build();
 
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            invalidateRejectedToken(response.statusCode());
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 return objectMapper.readValue(response.body(), typeReference);
@@ -155,6 +175,7 @@ public class ServicesHttpClient {
                     .build();
 
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            invalidateRejectedToken(response.statusCode());
 
             if (response.statusCode() < 200 || response.statusCode() >= 300) {
                 throw new WanakuWebException(
@@ -189,6 +210,7 @@ public class ServicesHttpClient {
                     .build();
 
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            invalidateRejectedToken(response.statusCode());
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 return objectMapper.readValue(response.body(), typeReference);
@@ -222,6 +244,7 @@ public class ServicesHttpClient {
                     .build();
 
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            invalidateRejectedToken(response.statusCode());
 
             if (response.statusCode() < 200 || response.statusCode() >= 300) {
                 throw new WanakuException("HTTP error: " + response.statusCode() + " - " + response.body());
@@ -443,6 +466,153 @@ public class ServicesHttpClient {
         return executeGet("/api/v1/data-store?name=" + encode(name), new TypeReference<>() {});
     }
 
+    /**
+     * Downloads the data stores with the given name, decoding their Base64 content straight into the target file.
+     * <p>
+     * Unlike {@link #getDataStoresByName(String)}, neither the response body nor the decoded content is held in
+     * memory: the response is parsed as a stream and decoded in chunks into a temporary file next to the target,
+     * which is then atomically renamed. If several data stores share the name, the last one wins.
+     *
+     * @param name The name of the data stores to download.
+     * @param target The file to write the decoded content to.
+     * @return {@code true} if a data store with content was written to the target, {@code false} otherwise.
+     * @throws WanakuException If an error occurs during the request or while writing the file.
+     */
+    public boolean downloadDataStoreByName(String name, Path target) {
+        return executeDownload("/api/v1/data-store?name=" + encode(name), target, null)
+                        .status()
+                == DataStoreDownload.Status.WRITTEN;
+    }
+
+    /**
+     * Downloads the data stores with the given name into the target file, as
+     * {@link #downloadDataStoreByName(String, Path)} does, unless they still match the given entity tag.
+     *
+     * @param name The name of the data stores to download.
+     * @param target The file to write the decoded content to.
+     * @param etag The entity tag of the copy the caller already has, or {@code null} to download unconditionally.
+     * @return The download result, with the entity tag of the current content.
+     * @throws WanakuException If an error occurs during the request or while writing the file.
+     */
+    public DataStoreDownload downloadDataStoreByName(String name, Path target, String etag) {
+        return executeDownload("/api/v1/data-store?name=" + encode(name), target, etag);
+    }
+
+    /**
+     * Executes a GET request returning data stores, and streams their decoded content into the target file.
+     *
+     * @param path The API endpoint path.
+     * @param target The file to write the decoded content to.
+     * @param etag The entity tag sent in {@code If-None-Match}, or {@code null}.
+     * @return The download result.
+     * @throws WanakuException If an error occurs during the request or while writing the file.
+     */
+    private DataStoreDownload executeDownload(String path, Path target, String etag) {
+        URI uri = URI.create(this.baseUrl + path);
+        HttpRequest.Builder builder =
+                withAuth(HttpRequest.newBuilder().uri(uri).header("Accept", MediaType.APPLICATION_JSON));
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        HttpRequest request = builder.GET().build();
+
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            invalidateRejectedToken(response.statusCode());
+
+            try (InputStream body = response.body()) {
+                String currentEtag = response.headers().firstValue("ETag").orElse(null);
+                if (response.statusCode() == 304) {
+                    return new DataStoreDownload(DataStoreDownload.Status.NOT_MODIFIED, etag);
+                }
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    throw new WanakuWebException(
+                            "HTTP error: " + response.statusCode() + " - "
+                                    + new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                            response.statusCode());
+                }
+
+                return new DataStoreDownload(
+                        writeDataStores(body, target)
+                                ? DataStoreDownload.Status.WRITTEN
+                                : DataStoreDownload.Status.NO_DATA,
+                        currentEtag);
+            }
+        } catch (JsonProcessingException e) {
+            throw new WanakuException("JSON processing error", e);
+        } catch (IOException e) {
+            throw new WanakuException("I/O error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WanakuException("Request interrupted", e);
+        }
+    }
+
+    /**
+     * Streams the {@code data} field of the data store in a {@code WanakuResponse<DataStore>} body, or of each
+     * data store in a {@code WanakuResponse<List<DataStore>>} body, into the target file.
+     */
+    private boolean writeDataStores(InputStream body, Path target) throws IOException {
+        boolean written = false;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"data".equals(field)) {
+                    parser.skipChildren();
+                } else if (value == JsonToken.START_OBJECT) {
+                    written |= writeDataStore(parser, target);
+                } else if (value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        written |= writeDataStore(parser, target);
+                    }
+                }
+            }
+        }
+
+        return written;
+    }
+
+    private static boolean writeDataStore(JsonParser parser, Path target) throws IOException {
+        boolean written = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field) && value == JsonToken.VALUE_STRING) {
+                written |= writeAtomically(parser, target);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return written;
+    }
+
+    private static boolean writeAtomically(JsonParser parser, Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            long size;
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                size = parser.readBinaryValue(os);
+            }
+
+            if (size == 0) {
+                return false;
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
     /**
      * Removes a data store by ID.
      *
@@ -476,6 +646,35 @@ public class ServicesHttpClient {
         return executeGet("/api/v1/service-catalog/download?name=" + encode(name), new TypeReference<>() {});
     }
 
+    /**
+     * Downloads a service catalog by name, decoding its ZIP straight into the target file without holding it
+     * in memory.
+     *
+     * @param name The name of the service catalog to download.
+     * @param target The file to write the ZIP to.
+     * @return {@code true} if the catalog had content and was written to the target, {@code false} otherwise.
+     * @throws WanakuException If an error occurs during the request or while writing the file.
+     */
+    public boolean downloadServiceCatalog(String name, Path target) {
+        return executeDownload("/api/v1/service-catalog/download?name=" + encode(name), target, null)
+                        .status()
+                == DataStoreDownload.Status.WRITTEN;
+    }
+
+    /**
+     * Downloads a service catalog by name into the target file, as {@link #downloadServiceCatalog(String, Path)}
+     * does, unless it still matches the given entity tag.
+     *
+     * @param name The name of the service catalog to download.
+     * @param target The file to write the ZIP to.
+     * @param etag The entity tag of the copy the caller already has, or {@code null} to download unconditionally.
+     * @return The download result, with the entity tag of the current content.
+     * @throws WanakuException If an error occurs during the request or while writing the file.
+     */
+    public DataStoreDownload downloadServiceCatalog(String name, Path target, String etag) {
+        return executeDownload("/api/v1/service-catalog/download?name=" + encode(name), target, etag);
+    }
+
     // ==================== Service Templates API Methods ====================
 
     /**
@@ -651,6 +850,7 @@ public class ServicesHttpClient {
 
         try {
             HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            invalidateRejectedToken(response.statusCode());
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 final ExecutorService executorService = Executors.newSingleThreadExecutor();
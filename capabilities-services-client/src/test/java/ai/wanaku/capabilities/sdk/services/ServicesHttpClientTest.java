@@ -3,28 +3,44 @@ package ai.wanaku.capabilities.sdk.services;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import ai.wanaku.capabilities.sdk.api.types.DataStore;
 import ai.wanaku.capabilities.sdk.api.types.ForwardReference;
 import ai.wanaku.capabilities.sdk.api.types.ResourceReference;
 import ai.wanaku.capabilities.sdk.api.types.ToolReference;
 import ai.wanaku.capabilities.sdk.api.types.io.TemplateInstantiationRequest;
 import ai.wanaku.capabilities.sdk.common.config.DefaultServiceConfig;
+import ai.wanaku.capabilities.sdk.common.security.AuthInitMode;
 import ai.wanaku.capabilities.sdk.common.serializer.JacksonSerializer;
+import ai.wanaku.capabilities.sdk.security.exceptions.ServiceAuthException;
 import com.sun.net.httpserver.HttpServer;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ServicesHttpClientTest {
 
     private HttpServer server;
+    private String baseUrl;
     private ServicesHttpClient client;
     private final List<RequestRecord> requests = new CopyOnWriteArrayList<>();
+    private final List<String> authorizationHeaders = new CopyOnWriteArrayList<>();
+    private final AtomicInteger tokenRequests = new AtomicInteger();
 
     record RequestRecord(String method, String path, String body) {}
 
@@ -32,7 +48,7 @@ class ServicesHttpClientTest {
     void setUp() throws IOException {
         server = HttpServer.create(new InetSocketAddress(0), 0);
         int port = server.getAddress().getPort();
-        String baseUrl = "http://localhost:" + port;
+        baseUrl = "http://localhost:" + port;
 
         // OIDC discovery endpoint
         server.createContext("/.well-known/openid-configuration", exchange -> {
@@ -51,6 +67,7 @@ class ServicesHttpClientTest {
 
         // Token endpoint
         server.createContext("/token", exchange -> {
+            tokenRequests.incrementAndGet();
             String tokenResponse = "{\"access_token\":\"test-token\",\"token_type\":\"Bearer\",\"expires_in\":3600}";
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(200, tokenResponse.length());
@@ -68,6 +85,7 @@ class ServicesHttpClientTest {
                 fullPath = fullPath + "?" + query;
             }
             requests.add(new RequestRecord(exchange.getRequestMethod(), fullPath, body));
+            authorizationHeaders.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
 
             String response = "{\"data\":null}";
             exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -93,6 +111,7 @@ class ServicesHttpClientTest {
     @AfterEach
     void tearDown() {
         requests.clear();
+        authorizationHeaders.clear();
         server.stop(0);
     }
 
@@ -286,6 +305,73 @@ class ServicesHttpClientTest {
         assertEquals("/api/v1/data-store?name=my-store", requests.getFirst().path());
     }
 
+    @Test
+    void downloadDataStoreByNameDecodesIntoTargetFile(@TempDir Path tempDir) throws IOException {
+        byte[] content = new byte[256 * 1024];
+        new Random(42).nextBytes(content);
+        String response = "{\"error\":null,\"data\":[{\"id\":\"ds-1\",\"name\":\"my-store\","
+                + "\"labels\":{\"a\":\"b\"},\"data\":\"" + Base64.getEncoder().encodeToString(content) + "\"}]}";
+        server.createContext("/api/v1/data-store", exchange -> {
+            requests.add(new RequestRecord(
+                    exchange.getRequestMethod(),
+                    exchange.getRequestURI().getPath() + "?"
+                            + exchange.getRequestURI().getQuery(),
+                    ""));
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+
+        Path target = tempDir.resolve("my-store");
+        assertTrue(client.downloadDataStoreByName("my-store", target));
+
+        assertEquals("/api/v1/data-store?name=my-store", requests.getFirst().path());
+        assertArrayEquals(content, Files.readAllBytes(target));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void downloadDataStoreByNameRevalidatesWithEtag(@TempDir Path tempDir) {
+        String response = "{\"data\":[{\"name\":\"my-store\",\"data\":\"aGVsbG8=\"}]}";
+        List<String> conditions = new CopyOnWriteArrayList<>();
+        server.createContext("/api/v1/data-store", exchange -> {
+            String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+            conditions.add(String.valueOf(condition));
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(condition)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, response.length());
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        Path target = tempDir.resolve("my-store");
+        DataStoreDownload first = client.downloadDataStoreByName("my-store", target, null);
+        assertEquals(DataStoreDownload.Status.WRITTEN, first.status());
+        assertEquals("\"v1\"", first.etag());
+
+        DataStoreDownload second = client.downloadDataStoreByName("my-store", tempDir.resolve("other"), first.etag());
+        assertEquals(DataStoreDownload.Status.NOT_MODIFIED, second.status());
+        assertFalse(Files.exists(tempDir.resolve("other")));
+        assertEquals(List.of("null", "\"v1\""), conditions);
+    }
+
+    @Test
+    void downloadDataStoreByNameReturnsFalseWithoutData(@TempDir Path tempDir) {
+        Path target = tempDir.resolve("my-store");
+
+        assertFalse(client.downloadDataStoreByName("my-store", target));
+        assertFalse(Files.exists(target));
+    }
+
     @Test
     void removeDataStoreUsesDeleteWithPathParam() {
         client.removeDataStore("ds-123");
@@ -397,6 +483,71 @@ class ServicesHttpClientTest {
         assertEquals(0, requests.size());
     }
 
+    // ==================== Auth Initialization Tests ====================
+
+    @Test
+    void lazyAuthDefersTokenRequestUntilFirstCall() {
+        tokenRequests.set(0);
+
+        ServicesHttpClient lazyClient = new ServicesHttpClient(authConfig("lazy-client", AuthInitMode.LAZY));
+        assertEquals(0, tokenRequests.get());
+
+        lazyClient.listTools();
+
+        assertEquals(1, tokenRequests.get());
+        assertEquals("Bearer test-token", authorizationHeaders.getFirst());
+    }
+
+    @Test
+    void asyncAuthFirstCallAwaitsBackgroundToken() {
+        tokenRequests.set(0);
+
+        ServicesHttpClient asyncClient = new ServicesHttpClient(authConfig("async-client", AuthInitMode.ASYNC));
+        asyncClient.listTools();
+
+        assertTrue(asyncClient.getServiceAuthenticator().whenInitialized().isDone());
+        assertEquals(1, tokenRequests.get());
+        assertEquals("Bearer test-token", authorizationHeaders.getFirst());
+    }
+
+    @Test
+    void asyncAuthFailureIsRetriedOnFirstCall() {
+        DefaultServiceConfig config = DefaultServiceConfig.Builder.newBuilder()
+                .baseUrl(baseUrl)
+                .serializer(new JacksonSerializer())
+                .clientId("test-client")
+                .secret("test-secret")
+                .tokenEndpoint("http://localhost:1")
+                .authInitMode(AuthInitMode.ASYNC)
+                .build();
+
+        ServicesHttpClient asyncClient = new ServicesHttpClient(config);
+
+        assertThrows(ServiceAuthException.class, asyncClient::listTools);
+        assertTrue(asyncClient.getServiceAuthenticator().whenInitialized().isCompletedExceptionally());
+    }
+
+    @Test
+    void clientsWithSameCredentialsShareToken() {
+        ServicesHttpClient otherClient = new ServicesHttpClient(authConfig("test-client", AuthInitMode.EAGER));
+        otherClient.listTools();
+        client.listTools();
+
+        assertEquals(1, tokenRequests.get());
+        assertEquals(2, authorizationHeaders.size());
+    }
+
+    private DefaultServiceConfig authConfig(String clientId, AuthInitMode mode) {
+        return DefaultServiceConfig.Builder.newBuilder()
+                .baseUrl(baseUrl)
+                .serializer(new JacksonSerializer())
+                .clientId(clientId)
+                .secret("test-secret")
+                .tokenEndpoint(baseUrl)
+                .authInitMode(mode)
+                .build();
+    }
+
     // ==================== No-Auth Tests ====================
 
     @Test